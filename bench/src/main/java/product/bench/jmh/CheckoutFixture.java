@@ -0,0 +1,100 @@
+package product.bench.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import product.DigitalProduct;
+import product.PhysicalProduct;
+import product.Product;
+import product.checkout.*;
+import product.pricing.*;
+import product.tax.*;
+
+/**
+ * Shared inputs for the checkout benchmarks: 64 products (a third digital), 16 carts of 20
+ * lines, three promotion shapes (hand-written and as rules), tax policies and a compiled
+ * plan. Per thread, so reusable receipts are never shared; next() walks the products so
+ * one call does not see the same line twice in a row.
+ */
+@State(Scope.Thread)
+public class CheckoutFixture {
+    Product[] items;
+    int[] qtys;
+    int mask;
+    Cart[] carts;
+
+    PricePolicy[] promos;
+    PricePolicy[] rulePromos;
+    TaxPolicy vat;
+    TaxPolicy digital;
+    TaxEngine taxes;
+    TaxEngine.OrderTax orderTax;
+
+    CheckoutCalculator calc;
+    CompiledCheckout plan;
+    CompiledCheckout noopPlan;
+    CompiledCheckout measuredPlan;
+    QuoteCache quotes;
+    Receipt reusable;
+
+    private int i;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rnd = new Random(42);
+        List<Product> catalog = new ArrayList<>();
+        for (int k = 0; k < 64; k++) {
+            if (k % 3 == 0) {
+                catalog.add(new DigitalProduct("D-" + k, "Digital " + k, 500 + rnd.nextInt(20_000), 10 + k));
+            } else {
+                PhysicalProduct p = new PhysicalProduct("P-" + k, "Physical " + k, 1_000 + rnd.nextInt(400_000), 0.2 + rnd.nextDouble() * 20);
+                p.trySetDimensions(5 + rnd.nextInt(60), 5 + rnd.nextInt(40), 1 + rnd.nextInt(30));
+                catalog.add(p);
+            }
+        }
+        items = catalog.toArray(new Product[0]);
+        mask = items.length - 1;
+        qtys = new int[items.length];
+        for (int k = 0; k < qtys.length; k++) qtys[k] = 1 + rnd.nextInt(4);
+
+        carts = new Cart[16];
+        for (int c = 0; c < carts.length; c++) {
+            carts[c] = new Cart();
+            for (int line = 0; line < 20; line++) {
+                int k = rnd.nextInt(items.length);
+                carts[c].add(items[k], qtys[k]);
+            }
+        }
+
+        promos = new PricePolicy[] {
+            new PercentagePromotion("P10", 10), new FixedPromotion("F50", 50), new BogoHalfPromotion("BOGO")
+        };
+        PromotionRules rules = PromotionRules.of("P10: percent 10", "F50: fixed 50", "BOGO: buy 1 get 1 at 50%");
+        rulePromos = new PricePolicy[] { rules.get("P10"), rules.get("F50"), rules.get("BOGO") };
+        vat = new FlatVat(12.0);
+        digital = new ReducedDigitalVat(5.0);
+        taxes = new TaxEngine(TaxRates.flat(12.0).with(TaxClass.DIGITAL, 5.0));
+        orderTax = new TaxEngine.OrderTax();
+
+        calc = new CheckoutCalculator(List.of(
+            new PromotionCharge(promos[0]),
+            new TaxCharge(vat),
+            new ShippingCharge(Policies.SIMPLE),
+            new EnvironmentalFeeCharge(30.0)
+        ), List.of(new OrderShippingCharge(1_500, 50_000)));
+        plan = calc.compile();
+        noopPlan = plan.withMetrics(CheckoutMetrics.NOOP);
+        measuredPlan = plan.withMetrics(new StageMetrics(plan));
+        quotes = new QuoteCache(plan, 4096);
+        reusable = new Receipt();
+    }
+
+    /** Next call index; callers take items[i & mask], carts[i & 15], promos[i % 3]. */
+    int next() {
+        return i++;
+    }
+}
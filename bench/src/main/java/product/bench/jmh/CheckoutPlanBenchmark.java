@@ -0,0 +1,113 @@
+package product.bench.jmh;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import product.DigitalProduct;
+import product.PhysicalProduct;
+import product.Product;
+import product.checkout.Cart;
+import product.checkout.Receipt;
+import product.pricing.Money;
+
+/**
+ * Whole-line and whole-cart checkout: receipts (fresh, pooled, cached), the compiled plan
+ * with and without metrics against a hand-inlined equivalent, the minor-unit path, and
+ * 20-line carts. Average ns per call; add -prof gc for bytes per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CheckoutPlanBenchmark {
+
+    @Benchmark
+    public double checkoutReceipt(CheckoutFixture f) {
+        int i = f.next() & f.mask;
+        return f.calc.checkout(f.items[i], f.qtys[i]).total();
+    }
+
+    @Benchmark
+    public double checkoutPooledReceipt(CheckoutFixture f) {
+        int i = f.next() & f.mask;
+        return f.calc.checkout(f.items[i], f.qtys[i], Receipt.pooled()).total();
+    }
+
+    @Benchmark
+    public double quoteCacheWarm(CheckoutFixture f) {
+        int i = f.next() & f.mask;
+        return f.quotes.checkout(f.items[i], f.qtys[i]).total();
+    }
+
+    @Benchmark
+    public double planQuote(CheckoutFixture f) {
+        int i = f.next() & f.mask;
+        return f.plan.quote(f.items[i], f.qtys[i]);
+    }
+
+    @Benchmark
+    public double planQuoteNoopMetrics(CheckoutFixture f) {
+        int i = f.next() & f.mask;
+        return f.noopPlan.quote(f.items[i], f.qtys[i]);
+    }
+
+    @Benchmark
+    public double planQuoteStageMetrics(CheckoutFixture f) {
+        int i = f.next() & f.mask;
+        return f.measuredPlan.quote(f.items[i], f.qtys[i]);
+    }
+
+    /** The plan's four stages written out by hand: the floor for planQuote. */
+    @Benchmark
+    public double handInlined(CheckoutFixture f) {
+        int i = f.next() & f.mask;
+        Product p = f.items[i];
+        int q = f.qtys[i];
+        double s = f.promos[0].apply(p, q);
+        s += f.vat.tax(p, q, s);
+        if (p instanceof PhysicalProduct pp) s += pp.estimateShippingCost();
+        return s + 30.0 * q;
+    }
+
+    @Benchmark
+    public long planQuoteMinor(CheckoutFixture f) {
+        int i = f.next() & f.mask;
+        return f.plan.quoteMinor(f.items[i], f.qtys[i]);
+    }
+
+    @Benchmark
+    public double cartCheckout20(CheckoutFixture f) {
+        return f.calc.checkout(f.carts[f.next() & 15], f.reusable).total();
+    }
+
+    @Benchmark
+    public double cartQuote20(CheckoutFixture f) {
+        return f.plan.quote(f.carts[f.next() & 15]);
+    }
+
+    /** Per-line taxMinor with a type check per line, as before TaxEngine. */
+    @Benchmark
+    public void cartTaxMinorPerLine20(CheckoutFixture f, Blackhole bh) {
+        Cart c = f.carts[f.next() & 15];
+        for (int line = 0; line < c.size(); line++) {
+            Product p = c.product(line);
+            int q = c.quantity(line);
+            long sub = Money.times(p.getPriceMinor(), q);
+            bh.consume(p instanceof DigitalProduct ? f.digital.taxMinor(p, q, sub) : f.vat.taxMinor(p, q, sub));
+        }
+    }
+
+    @Benchmark
+    public long cartTaxEngine20(CheckoutFixture f) {
+        Cart c = f.carts[f.next() & 15];
+        return f.taxes.compute(c.size(), c::product,
+            line -> Money.times(c.product(line).getPriceMinor(), c.quantity(line)), f.orderTax).totalTaxMinor();
+    }
+}
@@ -0,0 +1,72 @@
+package product.bench.jmh;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import product.Product;
+import product.checkout.Policies;
+
+/**
+ * Per-line pricing primitives: promotions (three shapes, so call sites see all three, as at
+ * checkout), tax policies and the shipping estimate. Average ns per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PricingBenchmark {
+
+    @Benchmark
+    public double promotionApply(CheckoutFixture f) {
+        int i = f.next();
+        return f.promos[i % 3].apply(f.items[i & f.mask], f.qtys[i & f.mask]);
+    }
+
+    @Benchmark
+    public long promotionApplyMinor(CheckoutFixture f) {
+        int i = f.next();
+        return f.promos[i % 3].applyMinor(f.items[i & f.mask], f.qtys[i & f.mask]);
+    }
+
+    @Benchmark
+    public double rulePromotionApply(CheckoutFixture f) {
+        int i = f.next();
+        return f.rulePromos[i % 3].apply(f.items[i & f.mask], f.qtys[i & f.mask]);
+    }
+
+    @Benchmark
+    public long rulePromotionApplyMinor(CheckoutFixture f) {
+        int i = f.next();
+        return f.rulePromos[i % 3].applyMinor(f.items[i & f.mask], f.qtys[i & f.mask]);
+    }
+
+    @Benchmark
+    public double taxFlatVat(CheckoutFixture f) {
+        Product p = f.items[f.next() & f.mask];
+        return f.vat.tax(p, 1, p.getPrice());
+    }
+
+    @Benchmark
+    public double taxReducedDigitalVat(CheckoutFixture f) {
+        Product p = f.items[f.next() & f.mask];
+        return f.digital.tax(p, 1, p.getPrice());
+    }
+
+    /** TaxEngine with the tax class precomputed on the product. */
+    @Benchmark
+    public double taxEngine(CheckoutFixture f) {
+        Product p = f.items[f.next() & f.mask];
+        return f.taxes.tax(p, 1, p.getPrice());
+    }
+
+    @Benchmark
+    public double shippingEstimate(CheckoutFixture f) {
+        return Policies.SIMPLE.shipping(f.items[f.next() & f.mask], 1, 0);
+    }
+}
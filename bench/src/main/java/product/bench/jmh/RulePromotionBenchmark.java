@@ -0,0 +1,119 @@
+package product.bench.jmh;
+
+import category.Category;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import product.PhysicalProduct;
+import product.Product;
+import product.pricing.BogoHalfPromotion;
+import product.pricing.FixedPromotion;
+import product.pricing.Money;
+import product.pricing.PercentagePromotion;
+import product.pricing.PricePolicy;
+import product.pricing.PromotionRules;
+
+/**
+ * A compiled PromotionRules rule against the Promotion subclass written by hand for the same
+ * shape, one shape per trial so each call site sees one class. PricingBenchmark has the
+ * mixed-shape case.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RulePromotionBenchmark {
+
+    @State(Scope.Thread)
+    public static class Shape {
+        @Param({"percent", "fixed", "bogo", "conditional"})
+        String shape;
+
+        PricePolicy handWritten;
+        PricePolicy rule;
+        Product[] items;
+        int[] qtys;
+        private int i;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            String text;
+            switch (shape) {
+                case "percent" -> { handWritten = new PercentagePromotion("H", 10); text = "R: percent 10"; }
+                case "fixed" -> { handWritten = new FixedPromotion("H", 50); text = "R: fixed 50"; }
+                case "bogo" -> { handWritten = new BogoHalfPromotion("H"); text = "R: buy 1 get 1 at 50%"; }
+                default -> { handWritten = new CategoryPricePercent(); text = "R: percent 10 if category=C1 and price>=5000"; }
+            }
+            rule = PromotionRules.compile(text).promotion;
+
+            Random rnd = new Random(42);
+            Category[] categories = new Category[4];
+            for (int k = 0; k < categories.length; k++) categories[k] = new Category("C" + k, "Category " + k, "");
+            items = new Product[64];
+            qtys = new int[items.length];
+            for (int k = 0; k < items.length; k++) {
+                items[k] = new PhysicalProduct("P-" + k, "Physical " + k, 500 + rnd.nextInt(20_000), 1.0);
+                items[k].trySetCategory(categories[rnd.nextInt(categories.length)]);
+                qtys[k] = 1 + rnd.nextInt(4);
+            }
+        }
+
+        int next() {
+            return i++ & 63;
+        }
+    }
+
+    /** "percent 10 if category=C1 and price>=5000" as a developer would write it by hand. */
+    static final class CategoryPricePercent extends PercentagePromotion {
+        CategoryPricePercent() { super("H", 10); }
+
+        @Override public boolean applicableTo(Product p) {
+            Category c = p.getCategory();
+            return c != null && "C1".equals(c.getCategoryId()) && p.getPrice() >= 5000;
+        }
+
+        @Override public double apply(Product p, int qty) {
+            return applicableTo(p) ? super.apply(p, qty) : p.getPrice() * Math.max(0, qty);
+        }
+
+        @Override public long applyMinor(Product p, int qty) {
+            return applicableTo(p) ? super.applyMinor(p, qty) : Money.times(p.getPriceMinor(), Math.max(0, qty));
+        }
+    }
+
+    @Benchmark
+    public double handWrittenApply(Shape s) {
+        int i = s.next();
+        return s.handWritten.apply(s.items[i], s.qtys[i]);
+    }
+
+    @Benchmark
+    public double ruleApply(Shape s) {
+        int i = s.next();
+        return s.rule.apply(s.items[i], s.qtys[i]);
+    }
+
+    @Benchmark
+    public long handWrittenApplyMinor(Shape s) {
+        int i = s.next();
+        return s.handWritten.applyMinor(s.items[i], s.qtys[i]);
+    }
+
+    @Benchmark
+    public long ruleApplyMinor(Shape s) {
+        int i = s.next();
+        return s.rule.applyMinor(s.items[i], s.qtys[i]);
+    }
+}
@@ -1,27 +1,37 @@
 package category;
 
-import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 import product.Product;
+import product.ProductListener;
+import product.pricing.Money;
 
-public class Category {
+public class Category implements ProductListener {
     private String categoryId;
     private String name;
     private String description;
-    private List<Product> products;
+    private Set<Product> products; // insertion order; O(1) add, duplicate check and remove
+    // Running aggregates, updated by product deltas so reads are O(1). Adders, not a monitor:
+    // deltas arrive on every mutating thread and must not serialize sales across a category.
+    private final LongAdder totalValueMinor = new LongAdder(); // minor units: integer deltas sum exactly
+    private final LongAdder outOfStockCount = new LongAdder();
+    private final LongAdder lowStockCount = new LongAdder();
+    private final LongAdder inStockCount = new LongAdder();
     
     public Category() {
         this.categoryId = "C000";
         this.name = "Unknown";
         this.description = "No description";
-        this.products = new ArrayList<>();
+        this.products = new LinkedHashSet<>();
     }
     
     public Category(String categoryId, String name, String description) {
         this.categoryId = categoryId;
         this.name = name;
         this.description = description;
-        this.products = new ArrayList<>();
+        this.products = new LinkedHashSet<>();
     }
     
     public String getCategoryId() {
@@ -36,8 +46,9 @@ public class Category {
         return description;
     }
     
-    public List<Product> getProducts() {
-        return products;
+    /** Snapshot in insertion order; mutate via addProduct/removeProduct. */
+    public synchronized List<Product> getProducts() {
+        return List.copyOf(products);
     }
     
     public void setCategoryId(String categoryId) {
@@ -52,27 +63,95 @@ public class Category {
         this.description = description;
     }
     
-    public boolean addProduct(Product product) {
+    /**
+     * Totals start from the values returned by registration, which are exactly what the
+     * listener's deltas build on, so concurrent price/stock changes are counted once.
+     */
+    public synchronized boolean addProduct(Product product) {
         if (product == null) return false;
-        if (products.contains(product)) return false; // reject duplicate reference
-        products.add(product);
+        if (!products.add(product)) return false; // reject duplicate reference
+        Product.Values base = product.addListener(this);
+        totalValueMinor.add(valueMinor(base.price, base.quantity));
+        countStatus(base.quantity, +1);
         return true;
     }
     
-    public boolean removeProduct(Product product) {
-        return products.remove(product);
+    /** Changes already in flight at removal still arrive and cancel out against the values removed. */
+    public synchronized boolean removeProduct(Product product) {
+        if (!products.remove(product)) return false;
+        Product.Values last = product.removeListenerValues(this);
+        if (last != null) {
+            totalValueMinor.add(-valueMinor(last.price, last.quantity));
+            countStatus(last.quantity, -1);
+        }
+        return true;
     }
     
-    public int getProductCount() {
+    public synchronized int getProductCount() {
         return products.size();
     }
     
+    /** Sum of price * quantity with each price rounded to the minor unit (see getTotalValueMinor). */
     public double getTotalValue() {
-        double total = 0;
+        return Money.toMajor(getTotalValueMinor());
+    }
+    
+    /**
+     * Total value in minor units. Deltas are integers, so the total matches a rescan at minor-unit
+     * prices whatever order concurrent changes arrive in; while changes are in flight it may lag.
+     */
+    public long getTotalValueMinor() {
+        return totalValueMinor.sum();
+    }
+    
+    public int getOutOfStockCount() {
+        return outOfStockCount.intValue();
+    }
+    
+    public int getLowStockCount() {
+        return lowStockCount.intValue();
+    }
+    
+    public int getInStockCount() {
+        return inStockCount.intValue();
+    }
+    
+    /**
+     * Rebuild the running aggregates from scratch (e.g. after members changed while detached).
+     * Call while no member is being changed: a change in flight would be counted twice.
+     */
+    public synchronized void recalculateTotals() {
+        totalValueMinor.reset();
+        outOfStockCount.reset();
+        lowStockCount.reset();
+        inStockCount.reset();
         for (Product product : products) {
-            total += product.calculateTotalValue();
+            Product.Values v = product.values();
+            totalValueMinor.add(valueMinor(v.price, v.quantity));
+            countStatus(v.quantity, +1);
+        }
+    }
+    
+    @Override
+    public void onValueChanged(Product p, double oldPrice, int oldQuantity,
+                               double newPrice, int newQuantity) {
+        totalValueMinor.add(valueMinor(newPrice, newQuantity) - valueMinor(oldPrice, oldQuantity));
+        if (!Product.stockStatusOf(oldQuantity).equals(Product.stockStatusOf(newQuantity))) {
+            countStatus(oldQuantity, -1);
+            countStatus(newQuantity, +1);
+        }
+    }
+    
+    private static long valueMinor(double price, int quantity) {
+        return Money.times(Money.ofMajor(price), quantity);
+    }
+    
+    private void countStatus(int quantity, int delta) {
+        switch (Product.stockStatusOf(quantity)) {
+            case "OUT_OF_STOCK" -> outOfStockCount.add(delta);
+            case "LOW" -> lowStockCount.add(delta);
+            default -> inStockCount.add(delta);
         }
-        return total;
     }
     
     public void displayCategoryInfo() {
@@ -81,9 +160,11 @@ public class Category {
         System.out.println("Description: " + description);
         System.out.println("Products: " + getProductCount());
         System.out.println("Total Value: $" + String.format("%.2f", getTotalValue()));
+        System.out.println("Stock: in=" + getInStockCount() + ", low=" + getLowStockCount()
+                           + ", out=" + getOutOfStockCount());
         System.out.println();
         
-        for (Product product : products) {
+        for (Product product : getProducts()) {
             System.out.println("- " + product.getName() + " (ID: " + product.getId() + ") - $" + String.format("%.2f", product.getPrice()));
         }
         System.out.println("=====================================");
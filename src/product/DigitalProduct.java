@@ -1,5 +1,7 @@
 package product;
 
+import product.tax.TaxClass;
+
 public class DigitalProduct extends Product {
     // Private fields
     private double downloadSizeMb;
@@ -39,9 +41,13 @@ public class DigitalProduct extends Product {
         return licenseKey;
     }
     
+    // Guards, shared by the mutators and by loaders that validate before constructing
+    public static boolean isValidDownloadSizeMb(double size) { return size >= 0.0 && size <= 1_000_000.0; }
+    public static boolean isValidLicenseKey(String key) { return key == null || key.length() <= 64; }
+    
     // Guarded mutators
     public boolean trySetDownloadSizeMb(double size) {
-        if (size >= 0.0 && size <= 1_000_000.0) {
+        if (isValidDownloadSizeMb(size)) {
             this.downloadSizeMb = size;
             return true;
         }
@@ -49,13 +55,18 @@ public class DigitalProduct extends Product {
     }
     
     public boolean trySetLicenseKey(String key) {
-        if (key == null || (key.length() <= 64)) {
+        if (isValidLicenseKey(key)) {
             this.licenseKey = key;
             return true;
         }
         return false;
     }
     
+    @Override
+    protected TaxClass defaultTaxClass() {
+        return TaxClass.DIGITAL;
+    }
+    
     // Business method to check if license is required
     public boolean isLicenseRequired() {
         return licenseKey != null && !licenseKey.isBlank();
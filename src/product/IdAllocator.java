@@ -0,0 +1,45 @@
+package product;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sequence allocator for auto-generated ids. Each thread takes a block of numbers
+ * from a shared atomic counter and hands them out locally, so the shared counter is
+ * touched once per block instead of once per id. Ids are unique, not gap-free, and
+ * only increasing within one thread.
+ */
+public final class IdAllocator {
+    private final AtomicLong next;
+    private final int blockSize;
+    private final ThreadLocal<long[]> block = ThreadLocal.withInitial(() -> new long[2]); // {next, end}
+
+    public IdAllocator(long first, int blockSize) {
+        if (blockSize <= 0) throw new IllegalArgumentException("blockSize must be > 0");
+        this.next = new AtomicLong(first);
+        this.blockSize = blockSize;
+    }
+
+    /** Next id for the calling thread. */
+    public long next() {
+        long[] b = block.get();
+        if (b[0] == b[1]) {
+            long start = next.getAndAdd(blockSize);
+            b[0] = start;
+            b[1] = start + blockSize;
+        }
+        return b[0]++;
+    }
+
+    /**
+     * Reserve count consecutive ids and make them the calling thread's next ids (for batch
+     * imports); returns the first one. What was left of the thread's previous block is dropped.
+     */
+    public long allocateRange(int count) {
+        if (count <= 0) throw new IllegalArgumentException("count must be > 0");
+        long start = next.getAndAdd(count);
+        long[] b = block.get();
+        b[0] = start;
+        b[1] = start + count;
+        return start;
+    }
+}
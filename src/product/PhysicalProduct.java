@@ -1,13 +1,18 @@
 package product;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import product.shipping.Shippable;
 
 public class PhysicalProduct extends Product implements Shippable {
+    private static final AtomicIntegerFieldUpdater<PhysicalProduct> SHIPPING_VERSION =
+        AtomicIntegerFieldUpdater.newUpdater(PhysicalProduct.class, "shippingVersion");
+    
     // Private fields
     private double weightKg;
     private double lengthCm;
     private double widthCm;
     private double heightCm;
+    private volatile int shippingVersion; // bumped only when weight/dimensions change (shipping cache key)
     
     // No-args constructor - safe defaults via super()
     public PhysicalProduct() {
@@ -57,22 +62,40 @@ public class PhysicalProduct extends Product implements Shippable {
         return heightCm;
     }
     
+    /**
+     * Change stamp of the shipping inputs: moves on trySetWeightKg/trySetDimensions only, not
+     * on price or stock changes (unlike getVersion()), so sales do not invalidate shipping caches.
+     */
+    public int getShippingVersion() {
+        return shippingVersion;
+    }
+    
+    // Guards, shared by the mutators and by loaders that validate before constructing
+    public static boolean isValidWeightKg(double weight) { return weight >= 0.0 && weight <= 1000.0; }
+    public static boolean isValidDimensions(double length, double width, double height) {
+        return length >= 0.0 && length <= 1000.0 &&
+               width >= 0.0 && width <= 1000.0 &&
+               height >= 0.0 && height <= 1000.0;
+    }
+    
     // Guarded mutators
     public boolean trySetWeightKg(double weight) {
-        if (weight >= 0.0 && weight <= 1000.0) {
+        if (isValidWeightKg(weight)) {
             this.weightKg = weight;
+            SHIPPING_VERSION.incrementAndGet(this);
+            bumpVersion();
             return true;
         }
         return false;
     }
     
     public boolean trySetDimensions(double length, double width, double height) {
-        if (length >= 0.0 && length <= 1000.0 &&
-            width >= 0.0 && width <= 1000.0 &&
-            height >= 0.0 && height <= 1000.0) {
+        if (isValidDimensions(length, width, height)) {
             this.lengthCm = length;
             this.widthCm = width;
             this.heightCm = height;
+            SHIPPING_VERSION.incrementAndGet(this);
+            bumpVersion();
             return true;
         }
         return false;
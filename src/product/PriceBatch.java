@@ -0,0 +1,29 @@
+package product;
+
+/**
+ * New prices for many products, made visible to readers in one step. Each product takes its
+ * price with Product.stagePrice and keeps reading its old price; publish() is one volatile
+ * write after which every staged product reads its new one (each folds it into its own
+ * Values, with the usual version bump and listener calls, on its next access). abandon()
+ * drops the staged prices instead.
+ */
+public final class PriceBatch {
+    private static final int PENDING = 0, PUBLISHED = 1, ABANDONED = 2;
+
+    private volatile int state = PENDING;
+
+    /** Switch every staged product to its new price at once. */
+    public synchronized void publish() {
+        if (state == ABANDONED) throw new IllegalStateException("batch was abandoned");
+        state = PUBLISHED;
+    }
+
+    /** Drop the staged prices; staged products keep their old ones. */
+    public synchronized void abandon() {
+        if (state == PUBLISHED) throw new IllegalStateException("batch was published");
+        state = ABANDONED;
+    }
+
+    public boolean isPending() { return state == PENDING; }
+    public boolean isPublished() { return state == PUBLISHED; }
+}
@@ -1,31 +1,93 @@
 package product;
 
 import category.Category;
+import product.tax.TaxClass;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
 
 public class Product {
     // Static members
     public static final String DEFAULT_CURRENCY = "KZT";
-    private static int SEQ = 1;
-    private static int createdCount = 0;
+    private static final IdAllocator IDS = new IdAllocator(1, 1024);
+    private static final LongAdder CREATED = new LongAdder();
+    private static final AtomicReferenceFieldUpdater<Product, Values> STATE =
+        AtomicReferenceFieldUpdater.newUpdater(Product.class, Values.class, "state");
+    private static final ProductListener[] NO_LISTENERS = new ProductListener[0];
+    private static final Values INITIAL = new Values(0.0, 0, 0, NO_LISTENERS);
+    
+    /**
+     * Price, quantity, change stamp and listeners, replaced as one unit by CAS. Every change
+     * is a step from one Values to the next, so a listener's (old, new) pairs chain exactly
+     * and a listener receives precisely the changes made after it was registered. A price
+     * staged in a PriceBatch rides along, unseen, until the batch is published.
+     */
+    public static final class Values {
+        public final double price;
+        public final int quantity;
+        public final int version;
+        private final ProductListener[] listeners; // copy-on-write
+        private final long priceMinor;             // Money.INEXACT unless price is whole minor units
+        private final PriceBatch batch;            // null unless a price is staged
+        private final double staged;               // price once batch is published
+        
+        private Values(double price, int quantity, int version, ProductListener[] listeners) {
+            this(price, quantity, version, listeners, product.pricing.Money.exactMinor(price), null, 0.0);
+        }
+        
+        private Values(double price, int quantity, int version, ProductListener[] listeners, long priceMinor,
+                       PriceBatch batch, double staged) {
+            this.price = price;
+            this.quantity = quantity;
+            this.version = version;
+            this.listeners = listeners;
+            this.priceMinor = priceMinor;
+            this.batch = batch;
+            this.staged = staged;
+        }
+        
+        /** Same price (and its minor units, and any staged price), other fields replaced. */
+        private Values with(int quantity, int version, ProductListener[] listeners) {
+            return new Values(price, quantity, version, listeners, priceMinor, batch, staged);
+        }
+        
+        public double totalValue() {
+            return price * quantity;
+        }
+
+        /** price in minor units (see pricing.Money), from this snapshot. */
+        public long priceMinor() {
+            return priceMinor != product.pricing.Money.INEXACT ? priceMinor : product.pricing.Money.ofMajor(price);
+        }
+    }
 
 
     // Product attributes
-    private String id;
+    private String id;          // null until set or first read; then "AUTO-<autoSeq>"
+    private final long autoSeq;
     private String name;
     private String description;
-    private double price;
-    private int quantity;
     private Category category;   
+    private TaxClass taxClass;     // null = defaultTaxClass(); assigned once at catalog load
+    private volatile Values state = INITIAL; // price, quantity, version, listeners
     
     // No-args constructor - sets safe defaults
     public Product() {
-        this.id = "AUTO-" + nextSeq();
+        this.autoSeq = IDS.next(); // "AUTO-n" string built lazily in getId()
         this.name = "Unnamed";
         this.description = null;
-        this.price = 0.0;
-        this.quantity = 0;
         this.category = null;
-        createdCount++;
+        CREATED.increment();
+    }
+    
+    /**
+     * For subclasses that are views over external storage (e.g. ColumnarProductStore rows):
+     * draws no auto id and is not counted in getCreatedCount().
+     */
+    protected Product(String id) {
+        this.autoSeq = -1;
+        this.id = id;
+        this.name = "Unnamed";
     }
     
     // Required-args constructor - id, name, price
@@ -47,14 +109,17 @@ public class Product {
         trySetCategory(category);
     }
     
-    // Static helper method
-    private static String nextSeq() {
-        return String.valueOf(SEQ++);
-    }
-    
     // Static factory method to get created count
     public static int getCreatedCount() {
-        return createdCount;
+        return CREATED.intValue();
+    }
+    
+    /**
+     * Reserve count consecutive auto-id numbers for a batch import; returns the first. The next
+     * count products constructed on the calling thread take them in order.
+     */
+    public static long reserveIdRange(int count) {
+        return IDS.allocateRange(count);
     }
     
     // Static factory methods
@@ -72,7 +137,12 @@ public class Product {
     
     // Getter methods
     public String getId() {
-        return id;
+        String current = id;
+        if (current == null) {
+            current = "AUTO-" + autoSeq;
+            id = current; // benign race: every thread builds the same string
+        }
+        return current;
     }
     
     public String getName() {
@@ -84,53 +154,152 @@ public class Product {
     }
     
     public double getPrice() {
-        return price;
+        return current().price;
+    }
+    
+    /** Price in minor units (see pricing.Money). */
+    public long getPriceMinor() {
+        return current().priceMinor(); // cached: exact prices convert the same in every rounding mode
     }
     
     public int getQuantity() {
-        return quantity;
+        return current().quantity;
+    }
+    
+    /** Price and quantity read together (separate getters may straddle a change). */
+    public Values values() {
+        return current();
     }
     
     public Category getCategory() {
         return category;
     }
     
+    /** Tax class used by TaxEngine; precomputed so checkout does no type checks. */
+    public TaxClass getTaxClass() {
+        TaxClass current = taxClass;
+        return current != null ? current : defaultTaxClass();
+    }
+    
+    /** Class for products that were never classified; subclasses override. */
+    protected TaxClass defaultTaxClass() {
+        return TaxClass.STANDARD;
+    }
+    
+    /**
+     * Change stamp: bumped after every successful price, quantity, category or tax class
+     * change (and by subclasses for their own pricing inputs). Equal stamps mean equal inputs.
+     */
+    public int getVersion() {
+        return current().version;
+    }
+    
+    // Guards, shared by the trySet* methods and by loaders that validate before constructing
+    public static boolean isValidId(String id) { return id != null && id.trim().length() >= 2; }
+    public static boolean isValidName(String name) { return name != null && name.trim().length() >= 2; }
+    public static boolean isValidDescription(String description) { return description == null || description.trim().length() <= 200; }
+    public static boolean isValidPrice(double price) { return price >= 0.0 && price <= 1_000_000.0; }
+    public static boolean isValidQuantity(int quantity) { return quantity >= 0 && quantity <= 1_000_000; }
+    
     // Guarded mutators
     public boolean trySetId(String id) {
-        if (id != null && id.trim().length() >= 2) {
+        if (isValidId(id)) {
+            ProductListener[] ls = state.listeners;
+            String old = ls.length == 0 ? null : getId(); // constructors have no listeners yet
             this.id = id.trim();
+            for (ProductListener l : ls) l.onIdChanged(this, old);
             return true;
         }
         return false;
     }
     
     public boolean trySetName(String name) {
-        if (name != null && name.trim().length() >= 2) {
+        if (isValidName(name)) {
+            String old = this.name;
             this.name = name.trim();
+            textChanged(old, description);
             return true;
         }
         return false;
     }
     
     public boolean trySetDescription(String description) {
-        if (description == null || description.trim().length() <= 200) {
+        if (isValidDescription(description)) {
+            String old = this.description;
             this.description = description == null ? null : description.trim();
+            textChanged(name, old);
             return true;
         }
         return false;
     }
     
     public boolean trySetPrice(double price) {
-        if (price >= 0.0 && price <= 1_000_000.0) {
-            this.price = price;
-            return true;
+        if (isValidPrice(price)) {
+            while (true) {
+                Values s = current();
+                if (transition(s, price, s.quantity)) return true;
+            }
         }
         return false;
     }
     
     public boolean trySetQuantity(int quantity) {
-        if (quantity >= 0 && quantity <= 1_000_000) {
-            this.quantity = quantity;
+        if (isValidQuantity(quantity)) {
+            while (true) {
+                Values s = current();
+                if (transition(s, s.price, quantity)) return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Atomically replace price if it still equals expected (e.g. batch repricing computed
+     * from a price that may have changed since). Same bounds as trySetPrice.
+     */
+    public boolean compareAndSetPrice(double expected, double price) {
+        if (!(price >= 0.0 && price <= 1_000_000.0)) return false;
+        while (true) {
+            Values s = current();
+            if (s.price != expected) return false;
+            if (transition(s, price, s.quantity)) return true; // else a stock change raced; retry
+        }
+    }
+    
+    /**
+     * Stage price in batch if the price still equals expected: readers keep seeing the
+     * current price until batch.publish(), then this product switches together with the rest
+     * of the batch. False if the price moved, the product is already in a pending batch or
+     * batch is no longer pending. A price change made before publish replaces the staged
+     * price. Same bounds as trySetPrice.
+     */
+    public boolean stagePrice(double expected, double price, PriceBatch batch) {
+        if (batch == null || !isValidPrice(price)) return false;
+        while (true) {
+            Values s = current();
+            if (s.price != expected || s.batch != null || !batch.isPending()) return false;
+            Values n = new Values(s.price, s.quantity, s.version, s.listeners, s.priceMinor, batch, price);
+            if (STATE.compareAndSet(this, s, n)) return true;
+        }
+    }
+    
+    /**
+     * Atomically replace quantity if it still equals expected (lock-free stock updates).
+     * Same bounds as trySetQuantity.
+     */
+    public boolean compareAndSetQuantity(int expected, int quantity) {
+        if (quantity < 0 || quantity > 1_000_000) return false;
+        while (true) {
+            Values s = current();
+            if (s.quantity != expected) return false;
+            if (transition(s, s.price, quantity)) return true; // else a price change raced; retry
+        }
+    }
+    
+    public boolean trySetTaxClass(TaxClass taxClass) {
+        if (taxClass != null) {
+            this.taxClass = taxClass;
+            bumpVersion();
             return true;
         }
         return false;
@@ -138,7 +307,10 @@ public class Product {
     
     public boolean trySetCategory(Category category) {
         if (category != null) {
+            Category old = this.category;
             this.category = category;
+            bumpVersion();
+            for (ProductListener l : state.listeners) l.onCategoryChanged(this, old);
             return true;
         }
         return false;
@@ -147,38 +319,142 @@ public class Product {
     // Inventory & business operations (guarded)
     public boolean addStock(int amount) {
         if (amount <= 0) return false;
-        long next = (long) quantity + amount; // avoid overflow
-        if (next > 1_000_000L) return false;
-        quantity += amount;
-        return true;
+        while (true) {
+            Values s = current();
+            long next = (long) s.quantity + amount; // avoid overflow
+            if (next > 1_000_000L) return false;
+            if (transition(s, s.price, (int) next)) return true;
+        }
     }
     
     public boolean sellProduct(int amount) {
-        if (amount <= 0 || amount > quantity) return false;
-        quantity -= amount;
-        return true;
+        if (amount <= 0) return false;
+        while (true) {
+            Values s = current();
+            if (amount > s.quantity) return false;
+            if (transition(s, s.price, s.quantity - amount)) return true;
+        }
     }
     
     public double calculateTotalValue() {
-        return price * quantity;
+        return values().totalValue();
     }
     
     public boolean applyDiscount(double percent) {
         if (percent < 0 || percent > 90) return false;
         double factor = 1 - percent / 100.0;
-        double next = price * factor;
-        // keep within allowed bounds
-        if (next < 0.0 || next > 1_000_000.0) return false;
-        price = next;
-        return true;
+        while (true) {
+            Values s = current();
+            double next = s.price * factor;
+            // keep within allowed bounds
+            if (next < 0.0 || next > 1_000_000.0) return false;
+            if (transition(s, next, s.quantity)) return true;
+        }
     }
     
+    /** From quantity alone; see ReservationService.stockStatus for a status net of holds. */
     public String getStockStatus() {
+        return stockStatusOf(getQuantity());
+    }
+    
+    /** Stock status for a given quantity (shared with aggregates that bucket by status). */
+    public static String stockStatusOf(int quantity) {
         if (quantity == 0) return "OUT_OF_STOCK";
         if (quantity <= 10) return "LOW";
         return "IN_STOCK";
     }
     
+    // Change listeners (price/quantity deltas, name/description/id/category edits)
+    /**
+     * Register a listener; returns the values at registration, which are exactly what its
+     * onValueChanged deltas start from (null if listener is null).
+     */
+    public Values addListener(ProductListener listener) {
+        if (listener == null) return null;
+        while (true) {
+            Values s = current();
+            ProductListener[] next = Arrays.copyOf(s.listeners, s.listeners.length + 1);
+            next[s.listeners.length] = listener;
+            Values n = s.with(s.quantity, s.version, next);
+            if (STATE.compareAndSet(this, s, n)) return n;
+        }
+    }
+    
+    public boolean removeListener(ProductListener listener) {
+        return removeListenerValues(listener) != null;
+    }
+    
+    /**
+     * Unregister a listener; returns the values at removal (null if it was not registered).
+     * Changes that started before removal may still be delivered afterwards.
+     */
+    public Values removeListenerValues(ProductListener listener) {
+        while (true) {
+            Values s = current();
+            ProductListener[] ls = s.listeners;
+            int i = 0;
+            while (i < ls.length && ls[i] != listener) i++;
+            if (i == ls.length) return null;
+            ProductListener[] next = new ProductListener[ls.length - 1];
+            System.arraycopy(ls, 0, next, 0, i);
+            System.arraycopy(ls, i + 1, next, i, ls.length - i - 1);
+            Values n = s.with(s.quantity, s.version, next);
+            if (STATE.compareAndSet(this, s, n)) return n;
+        }
+    }
+    
+    /** Values for a view subclass that keeps price/quantity elsewhere. */
+    protected static Values valuesOf(double price, int quantity, int version) {
+        return new Values(price, quantity, version, NO_LISTENERS);
+    }
+    
+    /** Invalidate version-keyed caches; call after changing a field that affects pricing. */
+    protected void bumpVersion() {
+        while (true) {
+            Values s = current();
+            if (STATE.compareAndSet(this, s, s.with(s.quantity, s.version + 1, s.listeners))) return;
+        }
+    }
+    
+    /** state with a published or abandoned PriceBatch folded in. */
+    private Values current() {
+        Values s = state;
+        return s.batch == null ? s : settle(s);
+    }
+    
+    private Values settle(Values s) {
+        while (s.batch != null && !s.batch.isPending()) {
+            boolean published = s.batch.isPublished();
+            Values n = published ? new Values(s.staged, s.quantity, s.version + 1, s.listeners)
+                                 : new Values(s.price, s.quantity, s.version, s.listeners, s.priceMinor, null, 0.0);
+            if (STATE.compareAndSet(this, s, n)) {
+                if (published) {
+                    for (ProductListener l : s.listeners) l.onValueChanged(this, s.price, s.quantity, n.price, n.quantity);
+                }
+                return n;
+            }
+            s = state;
+        }
+        return s;
+    }
+    
+    /** CAS from s to (price, quantity) and notify s's listeners; false if another change won. */
+    private boolean transition(Values s, double price, int quantity) {
+        Values n = price == s.price ? s.with(quantity, s.version + 1, s.listeners)
+                                    : new Values(price, quantity, s.version + 1, s.listeners);
+        if (!STATE.compareAndSet(this, s, n)) return false;
+        for (ProductListener l : s.listeners) {
+            l.onValueChanged(this, s.price, s.quantity, price, quantity);
+        }
+        return true;
+    }
+    
+    private void textChanged(String oldName, String oldDescription) {
+        for (ProductListener l : state.listeners) {
+            l.onTextChanged(this, oldName, oldDescription);
+        }
+    }
+    
     public void displayProductInfo() {
         System.out.println(toString());
     }
@@ -193,9 +469,10 @@ public class Product {
     
     @Override
     public String toString() {
+        Values s = values();
         return "Product{id='%s', name='%s', price=%.2f, qty=%d, status=%s, category=%s}"
-            .formatted(id, name, price, quantity, getStockStatus(),
-                       category == null ? "NONE" : category.getName());
+            .formatted(getId(), getName(), s.price, s.quantity, stockStatusOf(s.quantity),
+                       getCategory() == null ? "NONE" : getCategory().getName());
     }
 }
 
@@ -0,0 +1,21 @@
+package product;
+
+import category.Category;
+
+/** Callback for components that keep aggregates or indexes over products (e.g. Category totals). */
+public interface ProductListener {
+    /**
+     * Called after a successful price or quantity change, with the values before and after.
+     * Runs on the mutating thread; keep it short.
+     */
+    void onValueChanged(Product p, double oldPrice, int oldQuantity, double newPrice, int newQuantity);
+
+    /** Called after a successful name or description change; old values are passed in. */
+    default void onTextChanged(Product p, String oldName, String oldDescription) {}
+
+    /** Called after a successful id change (oldId may be an "AUTO-n" id). */
+    default void onIdChanged(Product p, String oldId) {}
+
+    /** Called after a successful category change; oldCategory may be null. */
+    default void onCategoryChanged(Product p, Category oldCategory) {}
+}
@@ -0,0 +1,120 @@
+package product.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import product.Product;
+import product.events.ChangeEvent;
+import product.events.ChangeEventBus;
+import product.events.ChangeEventHandler;
+
+/**
+ * Mutator throughput with and without a ChangeEventBus attached, plus a consistency check:
+ * aggregates kept only from event deltas must equal a full rescan once the bus drains.
+ *
+ *   cd src
+ *   java product.bench.ChangeEventBenchmark [threads] [opsPerThread]    (default 4 / 2_000_000)
+ *
+ * Each thread sells, restocks and reprices random products out of a shared pool of 10k.
+ */
+public class ChangeEventBenchmark {
+    private static final int PRODUCTS = 10_000;
+
+    /** Total stock value from valueDelta, applied once per batch. */
+    static final class StockValue implements ChangeEventHandler {
+        volatile double total;
+        private double pending;
+        long batches;
+
+        @Override public void onEvent(ChangeEvent e, boolean endOfBatch) {
+            pending += e.valueDelta();
+            if (endOfBatch) {
+                total += pending;
+                pending = 0;
+                batches++;
+            }
+        }
+    }
+
+    /** Units on hand and events per type. */
+    static final class Counts implements ChangeEventHandler {
+        volatile long units;
+        final long[] byType = new long[ChangeEvent.Type.values().length];
+
+        @Override public void onEvent(ChangeEvent e, boolean endOfBatch) {
+            units += e.quantityDelta();
+            byType[e.type().ordinal()]++;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int ops = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+
+        for (int pass = 0; pass < 2; pass++) { // first pass is warmup
+            List<Product> plain = products();
+            double baseline = run(plain, threads, ops);
+
+            List<Product> watched = products();
+            StockValue value = new StockValue();
+            Counts counts = new Counts();
+            value.total = totalValue(watched);
+            counts.units = totalUnits(watched);
+            try (ChangeEventBus bus = new ChangeEventBus(1 << 16, false, value, counts).start()) {
+                bus.attachAll(watched);
+                double withBus = run(watched, threads, ops);
+                bus.awaitDrained(10_000);
+                if (pass == 0) continue;
+                System.out.printf("no bus     %.0f ns/op per thread%n", baseline);
+                System.out.printf("with bus   %.0f ns/op per thread%n", withBus);
+                System.out.println(bus);
+                System.out.printf("batches    %d (%.1f events/batch)%n", value.batches,
+                                  bus.published() / (double) Math.max(1, value.batches));
+                System.out.printf("value      events %.2f, rescan %.2f%n", value.total, totalValue(watched));
+                System.out.printf("units      events %d, rescan %d%n", counts.units, totalUnits(watched));
+                for (ChangeEvent.Type t : ChangeEvent.Type.values()) {
+                    System.out.printf("  %-14s %d%n", t, counts.byType[t.ordinal()]);
+                }
+            }
+        }
+    }
+
+    private static List<Product> products() {
+        List<Product> out = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) out.add(new Product("E-" + i, "Item " + i, "", 100 + i % 900, 500, null));
+        return out;
+    }
+
+    /** Mean ns per mutator call on each thread. */
+    private static double run(List<Product> products, int threads, int ops) throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        long t0 = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                for (int i = 0; i < ops; i++) {
+                    Product p = products.get(rnd.nextInt(PRODUCTS));
+                    int op = rnd.nextInt(20);
+                    if (op == 0) p.trySetPrice(100 + rnd.nextInt(900));
+                    else if (op < 10) p.sellProduct(1 + rnd.nextInt(3));
+                    else p.addStock(1 + rnd.nextInt(3));
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread w : workers) w.join();
+        return (System.nanoTime() - t0) / (double) ops;
+    }
+
+    private static double totalValue(List<Product> products) {
+        double sum = 0;
+        for (Product p : products) sum += p.calculateTotalValue();
+        return sum;
+    }
+
+    private static long totalUnits(List<Product> products) {
+        long sum = 0;
+        for (Product p : products) sum += p.getQuantity();
+        return sum;
+    }
+}
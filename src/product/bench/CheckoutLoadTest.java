@@ -0,0 +1,67 @@
+package product.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import product.PhysicalProduct;
+import product.Product;
+import product.catalog.Catalog;
+import product.checkout.*;
+import product.inventory.InventoryService;
+import product.inventory.ReservationService;
+import product.pricing.PercentagePromotion;
+import product.tax.FlatVat;
+
+/**
+ * Local load generator for CheckoutService: fires a burst of concurrent carts at the
+ * service and prints outcome counts, throughput and latency percentiles.
+ *
+ *   cd src
+ *   java product.bench.CheckoutLoadTest [carts] [maxInFlight]     (default 50_000 / 20_000)
+ *
+ * On JDK 21+ each checkout runs on a virtual thread; older JDKs use a platform pool.
+ */
+public class CheckoutLoadTest {
+    public static void main(String[] args) throws Exception {
+        int carts = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int maxInFlight = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        Catalog catalog = new Catalog();
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            PhysicalProduct p = new PhysicalProduct("SKU-" + i, "Item " + i, 500 + i, 0.5 + i % 10);
+            p.trySetDimensions(20, 15, 10);
+            p.trySetQuantity(1_000_000);
+            catalog.add(p);
+            products.add(p);
+        }
+        CompiledCheckout plan = new CheckoutCalculator(List.of(
+            new PromotionCharge(new PercentagePromotion("P10", 10)),
+            new TaxCharge(new FlatVat(12.0)),
+            new ShippingCharge(Policies.SIMPLE)
+        )).compile();
+
+        Random rnd = new Random(7);
+        List<Cart> orders = new ArrayList<>(carts);
+        for (int c = 0; c < carts; c++) {
+            Cart cart = new Cart();
+            for (int line = 0, n = 1 + rnd.nextInt(8); line < n; line++) {
+                cart.add(products.get(rnd.nextInt(products.size())), 1 + rnd.nextInt(3));
+            }
+            orders.add(cart);
+        }
+
+        try (ReservationService reservations = new ReservationService(catalog, new InventoryService());
+             CheckoutService service = new CheckoutService(plan, reservations, maxInFlight, 30_000)) {
+            System.out.println("virtual threads: " + service.usesVirtualThreads());
+            long t0 = System.nanoTime();
+            List<CompletableFuture<CheckoutService.Result>> futures = new ArrayList<>(carts);
+            for (Cart cart : orders) futures.add(service.submit(cart));
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+            double seconds = (System.nanoTime() - t0) / 1e9;
+            System.out.printf("%d carts in %.2fs (%.0f carts/s)%n", carts, seconds, carts / seconds);
+            System.out.println(service);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package product.bench;
+
+import category.Category;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import product.Product;
+import product.store.ColumnarProductStore;
+
+/**
+ * Object layout (List<Product>) against ColumnarProductStore for the analytics scans it was
+ * built for: total value, total value of one category, discount all, low-stock rows.
+ *
+ *   cd src
+ *   java product.bench.ColumnarBenchmark [products]      (default 1_000_000)
+ *
+ * Prints ns per row, best of several rounds. The discount cases scale prices by a factor
+ * and its inverse in turn, so prices stay bounded across rounds.
+ */
+public class ColumnarBenchmark {
+    private static final int ROUNDS = 15;
+
+    static double sink;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random rnd = new Random(3);
+        Category[] categories = new Category[8];
+        for (int i = 0; i < categories.length; i++) categories[i] = new Category("C" + i, "Category " + i, "");
+        List<Product> objects = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            objects.add(new Product("COL-" + i, "Item " + i, "", 1 + rnd.nextInt(10_000), rnd.nextInt(50),
+                                    categories[rnd.nextInt(categories.length)]));
+        }
+        ColumnarProductStore store = new ColumnarProductStore();
+        store.addAll(objects);
+        Category target = categories[3];
+
+        System.out.printf("%d products%n", count);
+        System.out.printf("%-28s %10s %10s%n", "case", "objects", "columns");
+        compare("totalValue", count, () -> {
+            double total = 0;
+            for (Product p : objects) total += p.calculateTotalValue();
+            return total;
+        }, store::totalValue);
+        compare("totalValue(category)", count, () -> {
+            double total = 0;
+            for (Product p : objects) {
+                if (p.getCategory() == target) total += p.calculateTotalValue();
+            }
+            return total;
+        }, () -> store.totalValue(target));
+        boolean[] up = {false, false};
+        compare("discountAll 10% / undo", count, () -> {
+            // Product has no bulk op; the per-object equivalent is trySetPrice per product.
+            double factor = (up[0] = !up[0]) ? 0.9 : 1 / 0.9;
+            for (Product p : objects) p.trySetPrice(p.getPrice() * factor);
+            return 0;
+        }, () -> {
+            if (up[1] = !up[1]) store.discountAll(10);
+            else for (int i = 0; i < store.size(); i++) store.trySetPrice(i, store.priceAt(i) / 0.9);
+            return 0;
+        });
+        compare("lowStock (qty <= 10)", count, () -> {
+            int n = 0;
+            for (Product p : objects) {
+                if (p.getQuantity() <= 10) n++;
+            }
+            return n;
+        }, () -> store.lowStockRows(10).length);
+    }
+
+    private interface Scan { double run(); }
+
+    private static void compare(String name, int rows, Scan objects, Scan columns) {
+        System.out.printf("%-28s %10.2f %10.2f%n", name, best(objects) / rows, best(columns) / rows);
+    }
+
+    private static double best(Scan scan) {
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++) {
+            long t0 = System.nanoTime();
+            sink += scan.run();
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,86 @@
+package product.bench;
+
+import category.Category;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import product.Product;
+import product.checkout.LatencyHistogram;
+import product.pricing.PromotionOptimizer;
+import product.pricing.PromotionRules;
+
+/**
+ * Latency of PromotionOptimizer on random orders: 100 lines, 50 rule promotions spread
+ * over 10 exclusion groups (a quarter of them stackable, some independent).
+ *
+ *   cd src
+ *   java product.bench.PromotionOptimizerBenchmark [orders]      (default 200)
+ *
+ * Each order is a different random cart and promotion set, timed after a warmup pass.
+ * Target: p99 under 1 ms per order on one core.
+ */
+public class PromotionOptimizerBenchmark {
+    private static final int LINES = 100;
+    private static final int PROMOS = 50;
+    private static final int GROUPS = 10;
+    private static final int REPEATS = 50; // timed runs per order
+
+    static double sink;
+
+    public static void main(String[] args) {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        LatencyHistogram latency = new LatencyHistogram();
+        long nodes = 0;
+        long maxNodes = 0;
+        PromotionOptimizer.Plan sample = null;
+        for (int pass = 0; pass < 2; pass++) { // first pass is warmup
+            latency.reset();
+            nodes = 0;
+            maxNodes = 0;
+            for (int seed = 0; seed < orders; seed++) {
+                Random rnd = new Random(seed);
+                Product[] products = new Product[LINES];
+                int[] quantities = new int[LINES];
+                Category[] categories = new Category[5];
+                for (int i = 0; i < categories.length; i++) categories[i] = new Category("C" + i, "Category " + i, "");
+                for (int i = 0; i < LINES; i++) {
+                    products[i] = new Product("X-" + i, "Item " + i, "", 100 + rnd.nextInt(50_000), 10,
+                                              categories[rnd.nextInt(categories.length)]);
+                    quantities[i] = 1 + rnd.nextInt(4);
+                }
+                PromotionOptimizer optimizer = new PromotionOptimizer(candidates(rnd), 1_000_000);
+                for (int r = 0; r < REPEATS; r++) {
+                    long t0 = System.nanoTime();
+                    PromotionOptimizer.Plan plan = optimizer.optimize(products, quantities, LINES);
+                    latency.record(System.nanoTime() - t0);
+                    sink += plan.total();
+                    if (r == 0) {
+                        nodes += plan.nodes();
+                        maxNodes = Math.max(maxNodes, plan.nodes());
+                        sample = plan;
+                    }
+                }
+            }
+        }
+        System.out.printf("orders %d, %d lines, %d promos in %d groups%n", orders, LINES, PROMOS, GROUPS);
+        System.out.printf("nodes/order  mean %.0f, max %d%n", nodes / (double) orders, maxNodes);
+        System.out.println("latency      " + latency);
+        System.out.println("last plan    " + sample);
+        sample.explanation().stream().limit(5).forEach(line -> System.out.println("  " + line));
+    }
+
+    private static List<PromotionOptimizer.Candidate> candidates(Random rnd) {
+        List<PromotionOptimizer.Candidate> out = new ArrayList<>(PROMOS);
+        for (int i = 0; i < PROMOS; i++) {
+            String rule = switch (i % 4) {
+                case 0 -> "R" + i + ": percent " + (1 + rnd.nextInt(30)) + " if category=C" + rnd.nextInt(5);
+                case 1 -> "R" + i + ": buy " + (1 + rnd.nextInt(3)) + " get 1 at " + (20 + rnd.nextInt(80)) + "%";
+                case 2 -> "R" + i + ": fixed " + rnd.nextInt(500) + " if price>=" + rnd.nextInt(20_000);
+                default -> "R" + i + ": percent " + (1 + rnd.nextInt(10)) + " if price<=" + rnd.nextInt(50_000);
+            };
+            String group = rnd.nextInt(8) == 0 ? null : "G" + rnd.nextInt(GROUPS);
+            out.add(new PromotionOptimizer.Candidate(PromotionRules.compile(rule).promotion, group, rnd.nextInt(4) == 0));
+        }
+        return out;
+    }
+}
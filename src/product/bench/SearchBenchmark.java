@@ -0,0 +1,113 @@
+package product.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import product.Product;
+import product.checkout.LatencyHistogram;
+import product.search.SearchIndex;
+
+/**
+ * Query latency of SearchIndex against a linear scan of the same products (what callers
+ * of Category.getProducts() do today), plus the cost of keeping the index current.
+ *
+ *   cd src
+ *   java product.bench.SearchBenchmark [products]      (default 100000)
+ *
+ * Names/descriptions draw words from a skewed vocabulary, so common words have long
+ * posting lists (dense bitmap chunks) and rare ones short lists (array chunks).
+ */
+public class SearchBenchmark {
+    private static final int VOCABULARY = 2_000;
+    private static final int QUERIES = 20_000;
+
+    static long sink;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Random rnd = new Random(42);
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            products.add(new Product("S-" + i, words(rnd, 3), words(rnd, 8),
+                                     1 + rnd.nextInt(100_000), rnd.nextInt(40), null));
+        }
+        SearchIndex index = new SearchIndex();
+        long t0 = System.nanoTime();
+        index.addAll(products);
+        System.out.printf("build        %d products in %.0f ms, %s%n", count, (System.nanoTime() - t0) / 1e6, index);
+
+        String[] two = new String[QUERIES];
+        String[] prefix = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            two[i] = word(rnd) + " " + word(rnd);
+            prefix[i] = word(rnd).substring(0, 2) + "*";
+        }
+        run("1 common word + price + stock", q -> index.search(word(q, 5), 1_000, 20_000, 20, "IN_STOCK").size(), 200_000);
+        run("2 words, all results", q -> index.search(two[q % QUERIES]).size(), 200_000);
+        run("2 words, top 20", q -> index.search(two[q % QUERIES], 0, 1e6, 20).size(), 200_000);
+        run("prefix + price range", q -> index.search(prefix[q % QUERIES], 10_000, 30_000, 20).size(), 50_000);
+        run("price range only, top 20", q -> index.search(null, q % 90_000, q % 90_000 + 5_000, 20, "LOW").size(), 200_000);
+        run("linear scan, 2 words + price", q -> scan(products, two[q % QUERIES], 1_000, 20_000), 200);
+
+        // Updates the index has to follow: price moves and stock moves (most do not change status).
+        t0 = System.nanoTime();
+        for (int i = 0; i < 1_000_000; i++) {
+            Product p = products.get(i % count);
+            if (i % 10 == 0) p.trySetPrice(1 + (i * 31L) % 100_000);
+            else if (!p.sellProduct(1)) p.addStock(30);
+        }
+        System.out.printf("updates      %.0f ns/op (10%% price, 90%% stock)%n", (System.nanoTime() - t0) / 1e6);
+    }
+
+    private interface Query { int run(int q); }
+
+    private static void run(String name, Query query, int iterations) {
+        LatencyHistogram latency = new LatencyHistogram();
+        long hits = 0;
+        for (int pass = 0; pass < 2; pass++) { // first pass is warmup
+            latency.reset();
+            hits = 0;
+            for (int q = 0; q < iterations; q++) {
+                long t0 = System.nanoTime();
+                int n = query.run(q);
+                latency.record(System.nanoTime() - t0);
+                hits += n;
+            }
+        }
+        sink += hits;
+        System.out.printf("%-32s hits/q %6.1f  %s%n", name, hits / (double) iterations, latency);
+    }
+
+    private static int scan(List<Product> products, String text, double min, double max) {
+        String[] terms = SearchIndex.tokenize(text);
+        int n = 0;
+        for (Product p : products) {
+            if (p.getPrice() < min || p.getPrice() > max) continue;
+            String haystack = " " + String.join(" ", SearchIndex.tokenize(p.getName() + " " + p.getDescription())) + " ";
+            boolean all = true;
+            for (String t : terms) all &= haystack.contains(" " + t + " ");
+            if (all) n++;
+        }
+        return n;
+    }
+
+    private static String words(Random rnd, int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) sb.append(i == 0 ? "" : " ").append(word(rnd));
+        return sb.toString();
+    }
+
+    /** Skewed draw: low word ids are much more frequent. */
+    private static String word(Random rnd) {
+        double u = rnd.nextDouble();
+        return wordAt((int) (VOCABULARY * u * u * u));
+    }
+
+    private static String word(int q, int common) {
+        return wordAt(q % common);
+    }
+
+    private static String wordAt(int id) {
+        return "w" + Integer.toString(id, 36) + "x";
+    }
+}
@@ -0,0 +1,104 @@
+package product.bench;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import product.Product;
+import product.inventory.InventoryService;
+
+/**
+ * Concurrent stress test and throughput benchmark for the lock-free stock path
+ * (InventoryService.sell/addStock over Product.compareAndSetQuantity).
+ *
+ *   cd src
+ *   java product.bench.StockStressTest [threads] [opsPerThread] [products]   (default 8 / 1_000_000 / 4)
+ *
+ * A few hot products take every update, so the CAS loops contend. Each thread counts
+ * the units it successfully sold and added; afterwards every product must hold exactly
+ * initial + added - sold, and no sale may ever have taken quantity below zero.
+ * The same load is then run through a synchronized baseline for comparison.
+ * Exits with status 1 if an invariant fails.
+ */
+public class StockStressTest {
+    private static final int INITIAL = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int ops = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        InventoryService inventory = new InventoryService();
+        Object lock = new Object();
+        for (int pass = 0; pass < 2; pass++) { // first pass is warmup
+            Product[] products = products(count);
+            long[][] net = new long[threads][count];
+            double lockFree = run(threads, ops, count, (t, i, amount, sell) -> {
+                boolean ok = sell ? inventory.sell(products[i], amount) : inventory.addStock(products[i], amount);
+                if (ok) net[t][i] += sell ? -amount : amount;
+            });
+            boolean consistent = check(products, net);
+
+            Product[] baseline = products(count);
+            double locked = run(threads, ops, count, (t, i, amount, sell) -> {
+                synchronized (lock) {
+                    Product p = baseline[i];
+                    if (sell && p.getQuantity() >= amount) p.trySetQuantity(p.getQuantity() - amount);
+                    else if (!sell && p.getQuantity() + amount <= 1_000_000) p.trySetQuantity(p.getQuantity() + amount);
+                }
+            });
+            if (pass == 0) continue;
+            System.out.printf("%d threads x %d ops on %d products%n", threads, ops, count);
+            System.out.printf("CAS          %,.0f ops/s%n", lockFree);
+            System.out.printf("synchronized %,.0f ops/s%n", locked);
+            System.out.println("invariants   " + (consistent ? "ok" : "VIOLATED"));
+            if (!consistent) System.exit(1);
+        }
+    }
+
+    private interface Op { void apply(int thread, int product, int amount, boolean sell); }
+
+    /** Total operations per second across all threads. */
+    private static double run(int threads, int ops, int count, Op op) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < ops; i++) {
+                    // slightly more sells than adds, so products regularly run dry and sells fail
+                    op.apply(id, rnd.nextInt(count), 1 + rnd.nextInt(5), rnd.nextInt(100) < 52);
+                }
+            });
+            workers[t].start();
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        for (Thread w : workers) w.join();
+        return (double) threads * ops / ((System.nanoTime() - t0) / 1e9);
+    }
+
+    private static Product[] products(int count) {
+        Product[] out = new Product[count];
+        for (int i = 0; i < count; i++) out[i] = new Product("STRESS-" + i, "Hot item " + i, "", 100, INITIAL, null);
+        return out;
+    }
+
+    private static boolean check(Product[] products, long[][] net) {
+        boolean ok = true;
+        for (int i = 0; i < products.length; i++) {
+            long expected = INITIAL;
+            for (long[] perThread : net) expected += perThread[i];
+            int actual = products[i].getQuantity();
+            if (actual != expected || actual < 0) {
+                System.out.printf("product %d: quantity %d, expected %d%n", i, actual, expected);
+                ok = false;
+            }
+        }
+        return ok;
+    }
+}
@@ -0,0 +1,138 @@
+package product.catalog;
+
+import category.Category;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import product.Product;
+import product.ProductListener;
+
+/**
+ * Products indexed by id (hash), by category and by price (sorted).
+ * Reads are lock-free and may run concurrently with writes; writes are serialized.
+ * The catalog listens to the products it holds, so price, category and id changes
+ * re-index them automatically (quantity-only changes cost nothing).
+ */
+public class Catalog implements ProductListener {
+    /** What a product was indexed under, so it can be unindexed later. */
+    private static final class Entry {
+        final Product product;
+        final double price;
+        final Category category;
+        Entry(Product product) {
+            this.product = product;
+            this.price = product.getPrice();
+            this.category = product.getCategory();
+        }
+    }
+
+    private final Map<String, Entry> byId = new ConcurrentHashMap<>();
+    private final Map<Category, Set<Product>> byCategory = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<Double, Set<Product>> byPrice = new ConcurrentSkipListMap<>();
+
+    /** Add a product; false if null or its id is already taken. */
+    public synchronized boolean add(Product p) {
+        if (p == null || byId.containsKey(p.getId())) return false;
+        p.addListener(this); // before reading price/category, so a racing change re-indexes
+        Entry e = new Entry(p);
+        byId.put(p.getId(), e);
+        index(e);
+        return true;
+    }
+
+    /** Bulk load; each insert is O(1) (+ O(log n) for the price index). Returns how many were added. */
+    public synchronized int addAll(Collection<? extends Product> products) {
+        int added = 0;
+        for (Product p : products) {
+            if (add(p)) added++;
+        }
+        return added;
+    }
+
+    public synchronized Product remove(String id) {
+        Entry e = id == null ? null : byId.remove(id);
+        if (e == null) return null;
+        e.product.removeListener(this);
+        unindex(e);
+        return e.product;
+    }
+
+    /** Refresh the category/price indexes from the product's current values (done automatically on change). */
+    public synchronized boolean reindex(Product p) {
+        if (p == null) return false;
+        Entry old = byId.get(p.getId());
+        if (old == null || old.product != p) return false;
+        unindex(old);
+        Entry e = new Entry(p);
+        byId.put(p.getId(), e);
+        index(e);
+        return true;
+    }
+
+    @Override
+    public void onValueChanged(Product p, double oldPrice, int oldQuantity, double newPrice, int newQuantity) {
+        if (oldPrice != newPrice) reindex(p);
+    }
+
+    @Override
+    public void onCategoryChanged(Product p, Category oldCategory) {
+        reindex(p);
+    }
+
+    /** Re-key the product; if its new id is taken by another product it is dropped from the catalog. */
+    @Override
+    public synchronized void onIdChanged(Product p, String oldId) {
+        Entry e = oldId == null ? null : byId.get(oldId);
+        if (e == null || e.product != p) return;
+        byId.remove(oldId);
+        if (byId.putIfAbsent(p.getId(), e) != null) {
+            p.removeListener(this);
+            unindex(e);
+        }
+    }
+
+    public Product get(String id) {
+        Entry e = id == null ? null : byId.get(id);
+        return e == null ? null : e.product;
+    }
+
+    public boolean contains(String id) { return get(id) != null; }
+
+    public int size() { return byId.size(); }
+
+    public List<Product> inCategory(Category category) {
+        Set<Product> set = category == null ? null : byCategory.get(category);
+        return set == null ? List.of() : List.copyOf(set);
+    }
+
+    /** Products with min <= price <= max, cheapest first. */
+    public List<Product> priceBetween(double min, double max) {
+        List<Product> result = new ArrayList<>();
+        if (min > max) return result;
+        for (Set<Product> bucket : byPrice.subMap(min, true, max, true).values()) {
+            result.addAll(bucket);
+        }
+        return result;
+    }
+
+    private void index(Entry e) {
+        if (e.category != null) {
+            byCategory.computeIfAbsent(e.category, c -> ConcurrentHashMap.newKeySet()).add(e.product);
+        }
+        byPrice.computeIfAbsent(e.price, k -> ConcurrentHashMap.newKeySet()).add(e.product);
+    }
+
+    private void unindex(Entry e) {
+        if (e.category != null) {
+            Set<Product> set = byCategory.get(e.category);
+            if (set != null && set.remove(e.product) && set.isEmpty()) byCategory.remove(e.category);
+        }
+        Set<Product> bucket = byPrice.get(e.price);
+        if (bucket != null && bucket.remove(e.product) && bucket.isEmpty()) byPrice.remove(e.price);
+    }
+}
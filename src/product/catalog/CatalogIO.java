@@ -0,0 +1,526 @@
+package product.catalog;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import product.DigitalProduct;
+import product.PhysicalProduct;
+import product.Product;
+
+/**
+ * Streaming catalog import/export in CSV and a compact binary format.
+ * Imports read the file through read-only memory-mapped windows and parse row by row:
+ * numbers are decoded straight from the mapped bytes and only text fields become
+ * Strings. Every value goes through the product's trySet* guards; rows that fail are
+ * skipped and reported to the error callback instead of aborting the import.
+ *
+ * CSV columns (header row optional; fields may be "quoted" with "" escapes):
+ *   type,id,name,description,price,quantity,weightKg,lengthCm,widthCm,heightCm,downloadSizeMb,licenseKey
+ * type is product, physical or digital; columns that do not apply to the type are left empty.
+ */
+public final class CatalogIO {
+    public static final String CSV_HEADER =
+        "type,id,name,description,price,quantity,weightKg,lengthCm,widthCm,heightCm,downloadSizeMb,licenseKey";
+
+    private static final int BINARY_MAGIC = 0x43415442; // "CATB"
+    private static final int BINARY_VERSION = 1;
+    private static final byte TYPE_PRODUCT = 0, TYPE_PHYSICAL = 1, TYPE_DIGITAL = 2;
+    private static final long WINDOW = 64L << 20; // bytes mapped at a time
+
+    /** A rejected row: where it was and why. */
+    public static final class ImportError {
+        public final long row;      // 1-based data row (CSV: line of the row start) / record number
+        public final String field;  // offending column, or null for a structural error
+        public final String message;
+        ImportError(long row, String field, String message) { this.row = row; this.field = field; this.message = message; }
+        @Override public String toString() { return "row " + row + (field == null ? "" : " [" + field + "]") + ": " + message; }
+    }
+
+    /** Counters for one import run. */
+    public static final class Stats {
+        public long rows;
+        public long imported;
+        public long rejected;
+        public long bytes;
+        public long nanos;
+
+        public double rowsPerSecond() { return nanos == 0 ? 0 : rows * 1e9 / nanos; }
+        public double megabytesPerSecond() { return nanos == 0 ? 0 : bytes / 1e6 * 1e9 / nanos; }
+
+        @Override public String toString() {
+            return "Stats{rows=%d, imported=%d, rejected=%d, %.1f MB, %.0f rows/s, %.1f MB/s}"
+                .formatted(rows, imported, rejected, bytes / 1e6, rowsPerSecond(), megabytesPerSecond());
+        }
+    }
+
+    private CatalogIO() {}
+
+    /**
+     * Auto-id numbers for one import, reserved in consecutive ranges that double up to 1M:
+     * the shared id counter is touched O(log rows) times and a batch gets consecutive numbers.
+     */
+    private static final class IdRanges {
+        private int left;
+        private int next = 1024;
+
+        /** Call before constructing each product. */
+        void take() {
+            if (left == 0) {
+                Product.reserveIdRange(next);
+                left = next;
+                next = Math.min(next * 2, 1 << 20);
+            }
+            left--;
+        }
+    }
+
+    // ---------------------------------------------------------------- CSV import
+
+    public static Stats importCsv(Path file, Consumer<? super Product> sink, Consumer<? super ImportError> errors)
+            throws IOException {
+        Stats stats = new Stats();
+        long t0 = System.nanoTime();
+        Row row = new Row();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            stats.bytes = size;
+            long rowStart = 0;
+            long line = 1;
+            boolean first = true;
+            while (rowStart < size) {
+                long windowLen = Math.min(WINDOW, size - rowStart);
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, rowStart, windowLen);
+                int i = 0, limit = (int) windowLen;
+                boolean lastWindow = rowStart + windowLen == size;
+                while (i < limit) {
+                    row.reset();
+                    int end = row.parse(buf, i, limit, lastWindow);
+                    if (end < 0) break; // row crosses the window: remap starting at this row
+                    long rowLine = line;
+                    line += row.newlines;
+                    i = end;
+                    if (row.blank()) continue;
+                    if (first && row.is(0, "type")) { first = false; continue; }
+                    first = false;
+                    stats.rows++;
+                    Product p = row.toProduct(rowLine, errors);
+                    if (p == null) stats.rejected++;
+                    else { stats.imported++; sink.accept(p); }
+                }
+                if (i == 0 && !lastWindow) throw new IOException("row at line " + line + " exceeds " + WINDOW + " bytes");
+                rowStart += i;
+            }
+        }
+        stats.nanos = System.nanoTime() - t0;
+        return stats;
+    }
+
+    /** One CSV row, unescaped into a reusable byte buffer with per-field offsets. */
+    private static final class Row {
+        byte[] data = new byte[256];
+        int[] start = new int[16];
+        int[] len = new int[16];
+        int fields;
+        int length;
+        int newlines;
+        final IdRanges ids = new IdRanges();
+
+        void reset() { fields = 0; length = 0; newlines = 0; }
+
+        /** Parse one row from buf[i..limit); returns the index after it, or -1 if incomplete. */
+        int parse(MappedByteBuffer buf, int i, int limit, boolean lastWindow) {
+            boolean quoted = false, fieldStart = true;
+            int fieldBegin = 0;
+            while (i < limit) {
+                byte b = buf.get(i++);
+                if (quoted) {
+                    if (b == '"') {
+                        if (i < limit && buf.get(i) == '"') { put(b); i++; }
+                        else if (i == limit && !lastWindow) return -1;
+                        else quoted = false;
+                    } else {
+                        if (b == '\n') newlines++;
+                        put(b);
+                    }
+                } else if (b == '"' && fieldStart) {
+                    quoted = true;
+                    fieldStart = false;
+                } else if (b == ',') {
+                    endField(fieldBegin);
+                    fieldBegin = length;
+                    fieldStart = true;
+                } else if (b == '\n') {
+                    endField(fieldBegin);
+                    newlines++;
+                    return i;
+                } else if (b != '\r') {
+                    put(b);
+                    fieldStart = false;
+                }
+            }
+            if (!lastWindow) return -1;
+            endField(fieldBegin); // last row without trailing newline
+            newlines++;
+            return i;
+        }
+
+        private void put(byte b) {
+            if (length == data.length) data = Arrays.copyOf(data, length * 2);
+            data[length++] = b;
+        }
+
+        private void endField(int begin) {
+            if (fields == start.length) {
+                start = Arrays.copyOf(start, fields * 2);
+                len = Arrays.copyOf(len, fields * 2);
+            }
+            start[fields] = begin;
+            len[fields] = length - begin;
+            fields++;
+        }
+
+        boolean blank() { return fields <= 1 && length == 0; }
+
+        boolean empty(int f) { return f >= fields || len[f] == 0; }
+
+        boolean is(int f, String ascii) {
+            if (f >= fields || len[f] != ascii.length()) return false;
+            for (int k = 0; k < len[f]; k++) {
+                int c = data[start[f] + k];
+                if (c >= 'A' && c <= 'Z') c += 32;
+                if (c != ascii.charAt(k)) return false;
+            }
+            return true;
+        }
+
+        String text(int f) {
+            return empty(f) ? null : new String(data, start[f], len[f], StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Decimal with optional exponent, e.g. -12.50 or 5.0E-4; NaN if malformed or empty.
+         * Correctly rounded, the same double as Double.parseDouble on the field.
+         */
+        double number(int f) {
+            if (empty(f)) return Double.NaN;
+            int k = start[f], end = k + len[f];
+            boolean neg = data[k] == '-';
+            if (neg || data[k] == '+') k++;
+            long mantissa = 0;
+            int digits = 0, scale = 0;
+            boolean dot = false;
+            int exponent = 0;
+            for (; k < end; k++) {
+                byte c = data[k];
+                if (c == '.' && !dot) { dot = true; continue; }
+                if ((c == 'e' || c == 'E') && digits > 0) {
+                    exponent = exponent(k + 1, end);
+                    if (exponent == Integer.MIN_VALUE) return Double.NaN;
+                    break;
+                }
+                if (c < '0' || c > '9') return Double.NaN;
+                if (++digits <= 15) mantissa = mantissa * 10 + (c - '0');
+                if (dot) scale++;
+            }
+            if (digits == 0) return Double.NaN;
+            int shift = exponent - scale;
+            if (digits <= 15 && shift >= -22 && shift <= 22) {
+                // mantissa < 2^53 and 10^|shift| are exact doubles: one correctly rounded operation
+                double v = shift >= 0 ? mantissa * POW10[shift] : mantissa / POW10[-shift];
+                return neg ? -v : v;
+            }
+            return Double.parseDouble(new String(data, start[f], len[f], StandardCharsets.ISO_8859_1)); // checked above
+        }
+
+        private int exponent(int k, int end) {
+            boolean neg = k < end && data[k] == '-';
+            if (k < end && (data[k] == '-' || data[k] == '+')) k++;
+            if (k == end) return Integer.MIN_VALUE;
+            int e = 0;
+            for (; k < end; k++) {
+                byte c = data[k];
+                if (c < '0' || c > '9' || e > 400) return Integer.MIN_VALUE;
+                e = e * 10 + (c - '0');
+            }
+            return neg ? -e : e;
+        }
+
+        /** Whole number within int range; Long.MIN_VALUE if malformed or empty. */
+        long integer(int f) {
+            double v = number(f);
+            if (Double.isNaN(v) || v != Math.rint(v) || Math.abs(v) > Integer.MAX_VALUE) return Long.MIN_VALUE;
+            return (long) v;
+        }
+
+        Product toProduct(long line, Consumer<? super ImportError> errors) {
+            if (fields < 6) return reject(errors, line, null, "expected at least 6 columns, got " + fields);
+            boolean physical = is(0, "physical"), digital = is(0, "digital");
+            if (!physical && !digital && !is(0, "product")) return reject(errors, line, "type", "unknown type '" + text(0) + "'");
+
+            // Validate the whole row first: a rejected row constructs nothing and draws no id
+            String id = text(1), name = text(2), description = text(3);
+            if (!Product.isValidId(id)) return reject(errors, line, "id", "id must have >= 2 characters");
+            if (!Product.isValidName(name)) return reject(errors, line, "name", "name must have >= 2 characters");
+            if (!Product.isValidDescription(description)) return reject(errors, line, "description", "description longer than 200");
+            double price = number(4);
+            if (!Product.isValidPrice(price)) return reject(errors, line, "price", "price must be 0..1000000");
+            long qty = empty(5) ? 0 : integer(5);
+            if (qty == Long.MIN_VALUE || !Product.isValidQuantity((int) qty)) return reject(errors, line, "quantity", "quantity must be 0..1000000");
+            boolean hasWeight = physical && !empty(6), hasDimensions = physical && (!empty(7) || !empty(8) || !empty(9));
+            double weight = hasWeight ? number(6) : 0, length = hasDimensions ? number(7) : 0;
+            double width = hasDimensions ? number(8) : 0, height = hasDimensions ? number(9) : 0;
+            if (hasWeight && !PhysicalProduct.isValidWeightKg(weight)) return reject(errors, line, "weightKg", "weight must be 0..1000");
+            if (hasDimensions && !PhysicalProduct.isValidDimensions(length, width, height)) {
+                return reject(errors, line, "dimensions", "each dimension must be 0..1000");
+            }
+            boolean hasSize = digital && !empty(10);
+            double sizeMb = hasSize ? number(10) : 0;
+            String license = digital ? text(11) : null;
+            if (hasSize && !DigitalProduct.isValidDownloadSizeMb(sizeMb)) return reject(errors, line, "downloadSizeMb", "size must be 0..1000000");
+            if (!DigitalProduct.isValidLicenseKey(license)) return reject(errors, line, "licenseKey", "license key longer than 64");
+
+            ids.take();
+            Product p;
+            if (physical) {
+                PhysicalProduct pp = new PhysicalProduct();
+                if (hasWeight) pp.trySetWeightKg(weight);
+                if (hasDimensions) pp.trySetDimensions(length, width, height);
+                p = pp;
+            } else if (digital) {
+                DigitalProduct dp = new DigitalProduct();
+                if (hasSize) dp.trySetDownloadSizeMb(sizeMb);
+                dp.trySetLicenseKey(license);
+                p = dp;
+            } else {
+                p = new Product();
+            }
+            p.trySetId(id);
+            p.trySetName(name);
+            p.trySetDescription(description);
+            p.trySetPrice(price);
+            p.trySetQuantity((int) qty);
+            return p;
+        }
+
+        private static Product reject(Consumer<? super ImportError> errors, long line, String field, String message) {
+            if (errors != null) errors.accept(new ImportError(line, field, message));
+            return null;
+        }
+    }
+
+    private static final double[] POW10 = new double[23]; // 1e0..1e22, all exact
+    static {
+        POW10[0] = 1;
+        for (int k = 1; k < POW10.length; k++) POW10[k] = POW10[k - 1] * 10;
+    }
+
+    // ---------------------------------------------------------------- CSV export
+
+    public static long exportCsv(Iterable<? extends Product> products, Path file) throws IOException {
+        long count = 0;
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write(CSV_HEADER);
+            w.write('\n');
+            for (Product p : products) {
+                writeCsvRow(w, p);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void writeCsvRow(Writer w, Product p) throws IOException {
+        String type = p instanceof PhysicalProduct ? "physical" : p instanceof DigitalProduct ? "digital" : "product";
+        w.write(type);
+        w.write(',');
+        csv(w, p.getId());
+        w.write(',');
+        csv(w, p.getName());
+        w.write(',');
+        csv(w, p.getDescription());
+        w.write(',');
+        w.write(Double.toString(p.getPrice()));
+        w.write(',');
+        w.write(Integer.toString(p.getQuantity()));
+        if (p instanceof PhysicalProduct pp) {
+            w.write("," + pp.getWeightKg() + "," + pp.getLengthCm() + "," + pp.getWidthCm() + "," + pp.getHeightCm() + ",,");
+        } else if (p instanceof DigitalProduct dp) {
+            w.write(",,,,," + dp.getDownloadSizeMb() + ",");
+            csv(w, dp.getLicenseKey());
+        } else {
+            w.write(",,,,,,");
+        }
+        w.write('\n');
+    }
+
+    private static void csv(Writer w, String s) throws IOException {
+        if (s == null) return;
+        boolean quote = s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0;
+        if (!quote) { w.write(s); return; }
+        w.write('"');
+        w.write(s.replace("\"", "\"\""));
+        w.write('"');
+    }
+
+    // ---------------------------------------------------------------- binary format
+    // header: int magic, int version; then per record:
+    //   byte type, str id, str name, str description, double price, int quantity,
+    //   physical: double weight, length, width, height | digital: double size, str license
+    // str = int byteLength (-1 for null) + UTF-8 bytes
+
+    public static long exportBinary(Iterable<? extends Product> products, Path file) throws IOException {
+        long count = 0;
+        try (OutputStream os = Files.newOutputStream(file);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, 1 << 16))) {
+            out.writeInt(BINARY_MAGIC);
+            out.writeInt(BINARY_VERSION);
+            for (Product p : products) {
+                byte type = p instanceof PhysicalProduct ? TYPE_PHYSICAL : p instanceof DigitalProduct ? TYPE_DIGITAL : TYPE_PRODUCT;
+                out.writeByte(type);
+                writeString(out, p.getId());
+                writeString(out, p.getName());
+                writeString(out, p.getDescription());
+                out.writeDouble(p.getPrice());
+                out.writeInt(p.getQuantity());
+                if (p instanceof PhysicalProduct pp) {
+                    out.writeDouble(pp.getWeightKg());
+                    out.writeDouble(pp.getLengthCm());
+                    out.writeDouble(pp.getWidthCm());
+                    out.writeDouble(pp.getHeightCm());
+                } else if (p instanceof DigitalProduct dp) {
+                    out.writeDouble(dp.getDownloadSizeMb());
+                    writeString(out, dp.getLicenseKey());
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) { out.writeInt(-1); return; }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static Stats importBinary(Path file, Consumer<? super Product> sink, Consumer<? super ImportError> errors)
+            throws IOException {
+        Stats stats = new Stats();
+        long t0 = System.nanoTime();
+        Record reader = new Record();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            stats.bytes = size;
+            MappedByteBuffer head = ch.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(8, size));
+            if (size < 8 || head.getInt() != BINARY_MAGIC) throw new IOException(file + ": not a binary catalog");
+            if (head.getInt() != BINARY_VERSION) throw new IOException(file + ": unsupported catalog version");
+            long recordStart = 8;
+            while (recordStart < size) {
+                long windowLen = Math.min(WINDOW, size - recordStart);
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, recordStart, windowLen);
+                int consumed = 0;
+                while (buf.hasRemaining()) {
+                    Product p;
+                    try {
+                        p = reader.read(buf, stats.rows + 1, errors);
+                    } catch (BufferUnderflowException e) {
+                        if (recordStart + windowLen == size) throw new IOException(file + ": truncated record " + (stats.rows + 1));
+                        break; // record crosses the window: remap from its start
+                    }
+                    consumed = buf.position();
+                    stats.rows++;
+                    if (p == null) stats.rejected++;
+                    else { stats.imported++; sink.accept(p); }
+                }
+                if (consumed == 0) throw new IOException(file + ": record " + (stats.rows + 1) + " exceeds " + WINDOW + " bytes");
+                recordStart += consumed;
+            }
+        }
+        stats.nanos = System.nanoTime() - t0;
+        return stats;
+    }
+
+    /** Reads binary records; owns the scratch buffer for strings so it grows once, not per record. */
+    private static final class Record {
+        byte[] scratch = new byte[256];
+        final IdRanges ids = new IdRanges();
+
+        /** The next record as a product, or null (reported to errors) if a value is out of range. */
+        Product read(MappedByteBuffer buf, long record, Consumer<? super ImportError> errors) throws IOException {
+            byte type = buf.get();
+            String id = string(buf);
+            String name = string(buf);
+            String description = string(buf);
+            double price = buf.getDouble();
+            int quantity = buf.getInt();
+            double w = 0, l = 0, wd = 0, h = 0, sizeMb = 0;
+            String license = null;
+            switch (type) {
+                case TYPE_PHYSICAL -> { w = buf.getDouble(); l = buf.getDouble(); wd = buf.getDouble(); h = buf.getDouble(); }
+                case TYPE_DIGITAL -> { sizeMb = buf.getDouble(); license = string(buf); }
+                case TYPE_PRODUCT -> { }
+                default -> throw new IOException("record " + record + ": unknown type " + type);
+            }
+            // Whole record read (one that crosses the window is read again) and validated
+            // before anything is constructed: a rejected record draws no id.
+            String bad = null;
+            if (type == TYPE_PHYSICAL && !PhysicalProduct.isValidWeightKg(w)) bad = "weightKg";
+            else if (type == TYPE_PHYSICAL && !PhysicalProduct.isValidDimensions(l, wd, h)) bad = "dimensions";
+            else if (type == TYPE_DIGITAL && !DigitalProduct.isValidDownloadSizeMb(sizeMb)) bad = "downloadSizeMb";
+            else if (type == TYPE_DIGITAL && !DigitalProduct.isValidLicenseKey(license)) bad = "licenseKey";
+            else if (!Product.isValidId(id)) bad = "id";
+            else if (!Product.isValidName(name)) bad = "name";
+            else if (!Product.isValidDescription(description)) bad = "description";
+            else if (!Product.isValidPrice(price)) bad = "price";
+            else if (!Product.isValidQuantity(quantity)) bad = "quantity";
+            if (bad != null) {
+                if (errors != null) errors.accept(new ImportError(record, bad, "value out of range"));
+                return null;
+            }
+
+            ids.take();
+            Product p;
+            if (type == TYPE_PHYSICAL) {
+                PhysicalProduct pp = new PhysicalProduct();
+                pp.trySetWeightKg(w);
+                pp.trySetDimensions(l, wd, h);
+                p = pp;
+            } else if (type == TYPE_DIGITAL) {
+                DigitalProduct dp = new DigitalProduct();
+                dp.trySetDownloadSizeMb(sizeMb);
+                dp.trySetLicenseKey(license);
+                p = dp;
+            } else {
+                p = new Product();
+            }
+            p.trySetId(id);
+            p.trySetName(name);
+            p.trySetDescription(description);
+            p.trySetPrice(price);
+            p.trySetQuantity(quantity);
+            return p;
+        }
+
+        private String string(MappedByteBuffer buf) throws IOException {
+            int n = buf.getInt();
+            if (n < 0) return null;
+            if (n > WINDOW) throw new IOException("string length " + n + " out of range");
+            if (buf.remaining() < n) throw new BufferUnderflowException();
+            if (n > scratch.length) scratch = new byte[Math.max(n, scratch.length * 2)];
+            buf.get(scratch, 0, n);
+            return new String(scratch, 0, n, StandardCharsets.UTF_8);
+        }
+    }
+}
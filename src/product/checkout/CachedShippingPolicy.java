@@ -0,0 +1,94 @@
+package product.checkout;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import product.PhysicalProduct;
+import product.Product;
+
+/**
+ * Memoizes a ShippingPolicy for physical products, keyed by (product identity, shipping
+ * version, qty). PhysicalProduct bumps its shipping version in trySetWeightKg/trySetDimensions
+ * only, so a reshaped product simply misses and its old entry ages out, while sales and
+ * repricing keep hitting. Bounded LRU; thread-safe.
+ * Only wrap policies whose result does not depend on the subtotal (e.g. Policies.SIMPLE).
+ */
+public class CachedShippingPolicy implements ShippingPolicy {
+    private static final class Key {
+        final Product product; // identity: two catalogs may reuse an id
+        final int version;
+        final int qty;
+        Key(Product product, int version, int qty) { this.product = product; this.version = version; this.qty = qty; }
+        @Override public boolean equals(Object o) {
+            return o instanceof Key k && k.product == product && k.version == version && k.qty == qty;
+        }
+        @Override public int hashCode() {
+            return (System.identityHashCode(product) * 31 + version) * 31 + qty;
+        }
+    }
+
+    private final ShippingPolicy delegate;
+    private final int maxEntries;
+    private final Map<Key, Double> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachedShippingPolicy(ShippingPolicy delegate, int maxEntries) {
+        this.delegate = delegate;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) { // access order = LRU
+            @Override protected boolean removeEldestEntry(Map.Entry<Key, Double> eldest) {
+                if (size() <= CachedShippingPolicy.this.maxEntries) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public double shipping(Product p, int qty, double subtotal) {
+        if (!(p instanceof PhysicalProduct pp)) return delegate.shipping(p, qty, subtotal);
+        Key key = new Key(p, pp.getShippingVersion(), qty);
+        Double cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        double value = delegate.shipping(p, qty, subtotal);
+        synchronized (cache) {
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public long hits() { return hits.sum(); }
+    public long misses() { return misses.sum(); }
+    public long evictions() { return evictions.sum(); }
+
+    public double hitRatio() {
+        long h = hits.sum(), total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    @Override public String toString() {
+        return "CachedShippingPolicy{size=%d/%d, hitRatio=%.3f, evictions=%d}"
+            .formatted(size(), maxEntries, hitRatio(), evictions());
+    }
+}
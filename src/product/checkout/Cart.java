@@ -0,0 +1,43 @@
+package product.checkout;
+
+import java.util.Arrays;
+import product.Product;
+
+/**
+ * Order lines (product + qty) for batched checkout.
+ * Backed by parallel arrays so a cart can be cleared and refilled without garbage.
+ */
+public class Cart {
+    private Product[] products = new Product[8];
+    private int[] quantities = new int[8];
+    private int size;
+
+    /** Add a line; null product or qty <= 0 is rejected. */
+    public boolean add(Product p, int qty) {
+        if (p == null || qty <= 0) return false;
+        if (size == products.length) {
+            products = Arrays.copyOf(products, size * 2);
+            quantities = Arrays.copyOf(quantities, size * 2);
+        }
+        products[size] = p;
+        quantities[size] = qty;
+        size++;
+        return true;
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public Product product(int line) { return products[checkLine(line)]; }
+    public int quantity(int line) { return quantities[checkLine(line)]; }
+
+    /** Drop all lines but keep the storage for the next order. */
+    public void clear() {
+        Arrays.fill(products, 0, size, null);
+        size = 0;
+    }
+
+    private int checkLine(int line) {
+        if (line < 0 || line >= size) throw new IndexOutOfBoundsException("line " + line + ", size " + size);
+        return line;
+    }
+}
@@ -0,0 +1,17 @@
+package product.checkout;
+
+import product.pricing.Money;
+
+/** One order-wide stage, applied once to the whole cart after the per-line pipeline. */
+public interface CartCharge {
+    String name();
+    /**
+     * Apply a charge/discount to the cart total and return the new total.
+     * Must NOT mutate the cart or its products.
+     */
+    double apply(Cart cart, double subtotal);
+    /** Same as apply(...) in minor units (see pricing.Money); default converts through double. */
+    default long applyMinor(Cart cart, long subtotalMinor) {
+        return Money.ofMajor(apply(cart, Money.toMajor(subtotalMinor)));
+    }
+}
@@ -1,6 +1,7 @@
 package product.checkout;
 
 import product.Product;
+import product.pricing.Money;
 
 /** One stage in the pricing pipeline. */
 public interface Charge {
@@ -10,5 +11,12 @@ public interface Charge {
      * Must NOT mutate Product.
      */
     double apply(Product p, int qty, double subtotal);
+    /**
+     * Same as apply(...) with subtotal and result in minor units (see pricing.Money).
+     * Default converts through double; stages override to stay exact.
+     */
+    default long applyMinor(Product p, int qty, long subtotalMinor) {
+        return Money.ofMajor(apply(p, qty, Money.toMajor(subtotalMinor)));
+    }
 }
 
@@ -4,20 +4,28 @@ import product.Product;
 import java.util.List;
 
 public class CheckoutCalculator {
-    private final List<Charge> pipeline;
-    public CheckoutCalculator(List<Charge> pipeline) { this.pipeline = List.copyOf(pipeline); }
-
-    public Receipt checkout(Product p, int qty) {
-        double subtotal = p.getPrice() * Math.max(0, qty); // base
-        Receipt r = new Receipt();
-        r.add("Base(qty×price)", subtotal);
-        for (Charge c : pipeline) {
-            double next = c.apply(p, qty, subtotal);
-            r.add(c.name(), next - subtotal); // delta of this stage
-            subtotal = next;
-        }
-        r.setTotal(subtotal);
-        return r;
+    private final CompiledCheckout plan;
+
+    public CheckoutCalculator(List<Charge> pipeline) { this(pipeline, List.of()); }
+
+    public CheckoutCalculator(List<Charge> pipeline, List<CartCharge> cartCharges) {
+        this.plan = new CompiledCheckout(List.copyOf(pipeline), List.copyOf(cartCharges));
     }
-}
 
+    /** The frozen plan behind this calculator: stage arrays, cached labels, total-only quotes. */
+    public CompiledCheckout compile() { return plan; }
+
+    public Receipt checkout(Product p, int qty) { return plan.checkout(p, qty); }
+
+    /** Fill a caller-owned receipt, e.g. Receipt.pooled(), instead of allocating one. */
+    public Receipt checkout(Product p, int qty, Receipt into) { return plan.checkout(p, qty, into); }
+
+    /** Price a whole cart: per-line pipeline in one pass, then order-wide charges. */
+    public Receipt checkout(Cart cart) { return plan.checkout(cart, new Receipt()); }
+
+    /**
+     * Same as checkout(cart) but fills a caller-owned receipt (cleared first).
+     * Receipt lines are per stage (summed over cart lines), not per cart line.
+     */
+    public Receipt checkout(Cart cart, Receipt into) { return plan.checkout(cart, into); }
+}
@@ -0,0 +1,28 @@
+package product.checkout;
+
+/**
+ * Receives per-stage measurements from an instrumented CompiledCheckout
+ * (see CompiledCheckout.withMetrics). Called on the checkout thread for every stage
+ * of every line and for every order-wide stage of every cart, so implementations must
+ * be cheap and thread-safe.
+ */
+public interface CheckoutMetrics {
+    /** Disabled metrics; plans using it skip timing entirely. */
+    CheckoutMetrics NOOP = (stage, label, nanos, delta) -> { };
+
+    /**
+     * @param stage index of the stage: line stages first, then cart stages (CompiledCheckout.label)
+     * @param label the stage's (interned) label
+     * @param nanos time spent in the stage's apply
+     * @param delta how much the stage changed the running subtotal
+     */
+    void onStage(int stage, String label, long nanos, double delta);
+
+    /** Report to both a and b (e.g. histograms plus JFR). */
+    static CheckoutMetrics both(CheckoutMetrics a, CheckoutMetrics b) {
+        return (stage, label, nanos, delta) -> {
+            a.onStage(stage, label, nanos, delta);
+            b.onStage(stage, label, nanos, delta);
+        };
+    }
+}
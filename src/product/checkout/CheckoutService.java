@@ -0,0 +1,168 @@
+package product.checkout;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import product.inventory.ReservationService;
+
+/**
+ * Service layer around a compiled checkout plan: each submitted cart runs on its own
+ * virtual thread (platform pool fallback before JDK 21), reserves every line through
+ * ReservationService, prices the cart and then commits the holds all-or-nothing
+ * (ReservationService.commitAll), so a failed order leaves no line sold or held, also
+ * when reserving or pricing throws.
+ * Admission is bounded by a semaphore: when maxInFlight checkouts are already running,
+ * submit() completes immediately with REJECTED instead of queueing without limit.
+ */
+public class CheckoutService implements AutoCloseable {
+    public enum Status { COMPLETED, OUT_OF_STOCK, REJECTED, FAILED }
+
+    /** Outcome of one checkout; receipt is a snapshot and null unless COMPLETED. */
+    public static final class Result {
+        public final Status status;
+        public final Receipt receipt;
+        public final long latencyNanos;
+        Result(Status status, Receipt receipt, long latencyNanos) {
+            this.status = status;
+            this.receipt = receipt;
+            this.latencyNanos = latencyNanos;
+        }
+    }
+
+    private final CompiledCheckout plan;
+    private final ReservationService reservations;
+    private final long holdTtlMillis;
+    private final Semaphore admission;
+    private final int maxInFlight;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder outOfStock = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final long startedNanos = System.nanoTime();
+
+    public CheckoutService(CompiledCheckout plan, ReservationService reservations, int maxInFlight, long holdTtlMillis) {
+        this.plan = plan;
+        this.reservations = reservations;
+        this.holdTtlMillis = Math.max(1, holdTtlMillis);
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.admission = new Semaphore(this.maxInFlight);
+        ExecutorService virtual = virtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual
+            : Executors.newFixedThreadPool(Math.min(Math.max(1, maxInFlight), Runtime.getRuntime().availableProcessors() * 8));
+    }
+
+    /**
+     * Check out a cart asynchronously. The service takes ownership of the cart; do not
+     * modify it until the future completes.
+     */
+    public CompletableFuture<Result> submit(Cart cart) {
+        long start = System.nanoTime();
+        if (!admission.tryAcquire()) {
+            rejected.increment();
+            return CompletableFuture.completedFuture(new Result(Status.REJECTED, null, System.nanoTime() - start));
+        }
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(process(cart, start));
+                } catch (RuntimeException e) {
+                    failed.increment();
+                    future.complete(new Result(Status.FAILED, null, System.nanoTime() - start));
+                } finally {
+                    admission.release();
+                }
+            });
+        } catch (RuntimeException e) { // executor shut down
+            admission.release();
+            rejected.increment();
+            future.complete(new Result(Status.REJECTED, null, System.nanoTime() - start));
+        }
+        return future;
+    }
+
+    private Result process(Cart cart, long start) {
+        long[] tokens = new long[cart.size()];
+        int held = 0;
+        boolean ended = false; // commitAll ran: every hold is committed or back
+        try {
+            for (; held < tokens.length; held++) {
+                long token = reservations.reserve(cart.product(held), cart.quantity(held), holdTtlMillis);
+                if (token < 0) {
+                    outOfStock.increment();
+                    return finish(Status.OUT_OF_STOCK, null, start);
+                }
+                tokens[held] = token;
+            }
+            // A virtual thread lives for one checkout, so a ThreadLocal pool would never be reused.
+            Receipt receipt = virtualThreads ? plan.checkout(cart, new Receipt()).freeze()
+                                             : plan.checkout(cart, Receipt.pooled()).snapshot();
+            boolean sold = reservations.commitAll(tokens);
+            ended = true;
+            if (!sold) { // a hold expired while pricing: nothing is sold
+                failed.increment();
+                return finish(Status.FAILED, null, start);
+            }
+            completed.increment();
+            return finish(Status.COMPLETED, receipt, start);
+        } finally {
+            // Out of stock, or a stage/reserve threw: give back what this order holds now rather
+            // than leaving it unsellable until the TTL. Releasing a finished hold is a no-op.
+            if (!ended) for (int line = 0; line < held; line++) reservations.release(tokens[line]);
+        }
+    }
+
+    private Result finish(Status status, Receipt receipt, long start) {
+        long nanos = System.nanoTime() - start;
+        latency.record(nanos);
+        return new Result(status, receipt, nanos);
+    }
+
+    public LatencyHistogram latency() { return latency; }
+    public long completed() { return completed.sum(); }
+    public long outOfStock() { return outOfStock.sum(); }
+    public long rejected() { return rejected.sum(); }
+    public long failed() { return failed.sum(); }
+    public int inFlight() { return maxInFlight - admission.availablePermits(); }
+    public boolean usesVirtualThreads() { return virtualThreads; }
+
+    /** Completed checkouts per second since the service started. */
+    public double throughputPerSecond() {
+        long nanos = System.nanoTime() - startedNanos;
+        return nanos == 0 ? 0 : completed.sum() * 1e9 / nanos;
+    }
+
+    @Override public String toString() {
+        return "CheckoutService{completed=%d, outOfStock=%d, rejected=%d, failed=%d, %.0f/s, latency[%s]}"
+            .formatted(completed(), outOfStock(), rejected(), failed(), throughputPerSecond(), latency);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Executors.newVirtualThreadPerTaskExecutor() when the running JDK has it (21+), else null. */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package product.checkout;
+
+import java.math.RoundingMode;
+import java.util.List;
+import product.Product;
+import product.pricing.Money;
+
+/**
+ * Frozen checkout plan: stages copied into arrays and labels resolved (and interned) once.
+ * Immutable, so one plan can be shared by all threads. Obtain via CheckoutCalculator.compile().
+ * Each line stage is classified once by its exact class; the stage loop switches on that
+ * kind and calls the stage through its own type, so every call site sees one class and the
+ * JIT can inline it (a Charge[] loop over four classes is a megamorphic interface call).
+ * Other Charge implementations take the interface call.
+ * Minor-unit quotes round with the plan's mode if it has one (withRounding), else with the
+ * caller's Money.rounding(); plans with different modes can run side by side.
+ */
+public final class CompiledCheckout {
+    static final String BASE = "Base(qty×price)";
+    private static final int PROMOTION = 0, TAX = 1, SHIPPING = 2, FEE = 3, OTHER = 4;
+
+    private final Charge[] stages;
+    private final int[] kinds;
+    private final String[] labels;
+    private final CartCharge[] cartStages;
+    private final String[] cartLabels;
+    private final CheckoutMetrics metrics;
+    private final boolean instrumented; // false: stage calls take the untimed branch
+    private final RoundingMode rounding; // null = the caller's Money.rounding()
+
+    CompiledCheckout(List<Charge> pipeline, List<CartCharge> cartCharges) {
+        this.stages = pipeline.toArray(new Charge[0]);
+        this.kinds = new int[stages.length];
+        this.labels = new String[stages.length];
+        for (int i = 0; i < stages.length; i++) {
+            kinds[i] = kindOf(stages[i]);
+            labels[i] = stages[i].name().intern();
+        }
+        this.cartStages = cartCharges.toArray(new CartCharge[0]);
+        this.cartLabels = new String[cartStages.length];
+        for (int i = 0; i < cartStages.length; i++) cartLabels[i] = cartStages[i].name().intern();
+        this.metrics = CheckoutMetrics.NOOP;
+        this.instrumented = false;
+        this.rounding = null;
+    }
+
+    private CompiledCheckout(CompiledCheckout plan, CheckoutMetrics metrics, RoundingMode rounding) {
+        this.stages = plan.stages;
+        this.kinds = plan.kinds;
+        this.labels = plan.labels;
+        this.cartStages = plan.cartStages;
+        this.cartLabels = plan.cartLabels;
+        this.metrics = metrics == null ? CheckoutMetrics.NOOP : metrics;
+        this.instrumented = this.metrics != CheckoutMetrics.NOOP;
+        this.rounding = rounding;
+    }
+
+    /** Same plan, reporting per-stage timing and deltas to metrics (NOOP turns it off). */
+    public CompiledCheckout withMetrics(CheckoutMetrics metrics) { return new CompiledCheckout(this, metrics, rounding); }
+
+    /** Same plan, rounding every inexact minor-unit step with mode (null = the caller's Money.rounding()). */
+    public CompiledCheckout withRounding(RoundingMode mode) {
+        return new CompiledCheckout(this, metrics, mode == null ? null : Money.checkRounding(mode));
+    }
+
+    public CheckoutMetrics metrics() { return metrics; }
+
+    /** The plan's rounding for minor-unit quotes, or null if it uses the caller's Money.rounding(). */
+    public RoundingMode rounding() { return rounding; }
+
+    /** Per-line stages; metrics report them as stages 0..stageCount()-1. */
+    public int stageCount() { return stages.length; }
+    /** Order-wide stages; metrics report them after the line stages, as stageCount() + i. */
+    public int cartStageCount() { return cartStages.length; }
+    /** Label of a line stage, or of cart stage (stage - stageCount()). */
+    public String label(int stage) { return stage < stages.length ? labels[stage] : cartLabels[stage - stages.length]; }
+
+    /** Full receipt for one product line. */
+    public Receipt checkout(Product p, int qty) { return checkout(p, qty, new Receipt()); }
+
+    /** Same as checkout(p, qty) but fills a caller-owned or pooled receipt (cleared first). */
+    public Receipt checkout(Product p, int qty, Receipt r) {
+        r.clear();
+        double subtotal = p.getPrice() * Math.max(0, qty); // base
+        r.add(BASE, subtotal);
+        for (int i = 0; i < stages.length; i++) {
+            double next = apply(i, p, qty, subtotal);
+            r.add(labels[i], next - subtotal); // delta of this stage
+            subtotal = next;
+        }
+        r.setTotal(subtotal);
+        return r;
+    }
+
+    /** Total only, no receipt lines (for high-volume quote endpoints). */
+    public double quote(Product p, int qty) {
+        double subtotal = p.getPrice() * Math.max(0, qty);
+        for (int i = 0; i < stages.length; i++) subtotal = apply(i, p, qty, subtotal);
+        return subtotal;
+    }
+
+    /** Total only, exact minor units (see pricing.Money). */
+    public long quoteMinor(Product p, int qty) {
+        return rounding == null ? lineMinor(p, qty) : Money.withRounding(rounding, () -> lineMinor(p, qty));
+    }
+
+    private long lineMinor(Product p, int qty) {
+        long subtotal = Money.times(p.getPriceMinor(), Math.max(0, qty));
+        for (int i = 0; i < stages.length; i++) subtotal = applyMinor(i, p, qty, subtotal);
+        return subtotal;
+    }
+
+    /** Fill a caller-owned receipt (cleared first) with one line per stage, summed over the cart. */
+    public Receipt checkout(Cart cart, Receipt into) {
+        into.clear();
+        into.add(BASE, 0);
+        for (int i = 0; i < stages.length; i++) into.add(labels[i], 0); // receipt line i+1 sums stage i
+        double total = 0;
+        for (int line = 0; line < cart.size(); line++) {
+            Product p = cart.product(line);
+            int qty = cart.quantity(line);
+            double subtotal = p.getPrice() * qty;
+            into.addTo(0, subtotal);
+            for (int i = 0; i < stages.length; i++) {
+                double next = apply(i, p, qty, subtotal);
+                into.addTo(i + 1, next - subtotal);
+                subtotal = next;
+            }
+            total += subtotal;
+        }
+        for (int i = 0; i < cartStages.length; i++) {
+            double next = applyCart(i, cart, total);
+            into.add(cartLabels[i], next - total);
+            total = next;
+        }
+        into.setTotal(total);
+        return into;
+    }
+
+    /** Cart total only, no receipt lines. */
+    public double quote(Cart cart) {
+        double total = 0;
+        for (int line = 0; line < cart.size(); line++) {
+            Product p = cart.product(line);
+            int qty = cart.quantity(line);
+            double subtotal = p.getPrice() * qty;
+            for (int i = 0; i < stages.length; i++) subtotal = apply(i, p, qty, subtotal);
+            total += subtotal;
+        }
+        for (int i = 0; i < cartStages.length; i++) total = applyCart(i, cart, total);
+        return total;
+    }
+
+    /** Cart total only, exact minor units (see pricing.Money). */
+    public long quoteMinor(Cart cart) {
+        return rounding == null ? cartMinor(cart) : Money.withRounding(rounding, () -> cartMinor(cart));
+    }
+
+    private long cartMinor(Cart cart) {
+        long total = 0;
+        for (int line = 0; line < cart.size(); line++) {
+            Product p = cart.product(line);
+            int qty = cart.quantity(line);
+            long subtotal = Money.times(p.getPriceMinor(), qty);
+            for (int i = 0; i < stages.length; i++) subtotal = applyMinor(i, p, qty, subtotal);
+            total = Math.addExact(total, subtotal);
+        }
+        for (int i = 0; i < cartStages.length; i++) total = applyCartMinor(i, cart, total);
+        return total;
+    }
+
+    /** Exact class only: a subclass may override apply, and would share the type profile. */
+    private static int kindOf(Charge c) {
+        Class<?> k = c.getClass();
+        if (k == PromotionCharge.class) return PROMOTION;
+        if (k == TaxCharge.class) return TAX;
+        if (k == ShippingCharge.class) return SHIPPING;
+        if (k == EnvironmentalFeeCharge.class) return FEE;
+        return OTHER;
+    }
+
+    private double call(int stage, Product p, int qty, double subtotal) {
+        Charge c = stages[stage];
+        switch (kinds[stage]) {
+            case PROMOTION: return ((PromotionCharge) c).apply(p, qty, subtotal);
+            case TAX: return ((TaxCharge) c).apply(p, qty, subtotal);
+            case SHIPPING: return ((ShippingCharge) c).apply(p, qty, subtotal);
+            case FEE: return ((EnvironmentalFeeCharge) c).apply(p, qty, subtotal);
+            default: return c.apply(p, qty, subtotal);
+        }
+    }
+
+    private long callMinor(int stage, Product p, int qty, long subtotal) {
+        Charge c = stages[stage];
+        switch (kinds[stage]) {
+            case PROMOTION: return ((PromotionCharge) c).applyMinor(p, qty, subtotal);
+            case TAX: return ((TaxCharge) c).applyMinor(p, qty, subtotal);
+            case SHIPPING: return ((ShippingCharge) c).applyMinor(p, qty, subtotal);
+            case FEE: return ((EnvironmentalFeeCharge) c).applyMinor(p, qty, subtotal);
+            default: return c.applyMinor(p, qty, subtotal);
+        }
+    }
+
+    private double apply(int stage, Product p, int qty, double subtotal) {
+        if (!instrumented) return call(stage, p, qty, subtotal);
+        long t0 = System.nanoTime();
+        double next = call(stage, p, qty, subtotal);
+        metrics.onStage(stage, labels[stage], System.nanoTime() - t0, next - subtotal);
+        return next;
+    }
+
+    private long applyMinor(int stage, Product p, int qty, long subtotal) {
+        if (!instrumented) return callMinor(stage, p, qty, subtotal);
+        long t0 = System.nanoTime();
+        long next = callMinor(stage, p, qty, subtotal);
+        metrics.onStage(stage, labels[stage], System.nanoTime() - t0, Money.toMajor(next - subtotal));
+        return next;
+    }
+
+    private double applyCart(int stage, Cart cart, double total) {
+        if (!instrumented) return cartStages[stage].apply(cart, total);
+        long t0 = System.nanoTime();
+        double next = cartStages[stage].apply(cart, total);
+        metrics.onStage(stages.length + stage, cartLabels[stage], System.nanoTime() - t0, next - total);
+        return next;
+    }
+
+    private long applyCartMinor(int stage, Cart cart, long total) {
+        if (!instrumented) return cartStages[stage].applyMinor(cart, total);
+        long t0 = System.nanoTime();
+        long next = cartStages[stage].applyMinor(cart, total);
+        metrics.onStage(stages.length + stage, cartLabels[stage], System.nanoTime() - t0, Money.toMajor(next - total));
+        return next;
+    }
+}
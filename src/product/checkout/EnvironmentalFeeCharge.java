@@ -1,13 +1,23 @@
 package product.checkout;
 
 import product.Product;
+import product.pricing.Money;
 
 public class EnvironmentalFeeCharge implements Charge {
     private final double feePerUnit; // >= 0
-    public EnvironmentalFeeCharge(double feePerUnit) { this.feePerUnit = Math.max(0, feePerUnit); }
-    @Override public String name() { return "EnvFee(" + feePerUnit + "/unit)"; }
+    private final long feePerUnitMinor;
+    private final String name;
+    public EnvironmentalFeeCharge(double feePerUnit) {
+        this.feePerUnit = Math.max(0, feePerUnit);
+        this.feePerUnitMinor = Money.ofMajor(this.feePerUnit);
+        this.name = "EnvFee(" + this.feePerUnit + "/unit)";
+    }
+    @Override public String name() { return name; }
     @Override public double apply(Product p, int qty, double subtotal) {
         return subtotal + feePerUnit * Math.max(0, qty);
     }
+    @Override public long applyMinor(Product p, int qty, long subtotalMinor) {
+        return subtotalMinor + Money.times(feePerUnitMinor, Math.max(0, qty));
+    }
 }
 
@@ -0,0 +1,37 @@
+package product.checkout;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * CheckoutMetrics that emits a JFR event per stage invocation, viewable in JDK Mission
+ * Control. Costs one isEnabled() check per stage unless a recording enables the event:
+ *   java -XX:StartFlightRecording:filename=checkout.jfr,settings=profile ...
+ */
+public class JfrCheckoutMetrics implements CheckoutMetrics {
+    @Name("product.checkout.Stage")
+    @Label("Checkout Stage")
+    @Category({"Shop", "Checkout"})
+    @Description("One Charge stage applied to one checkout line, or one CartCharge to one cart")
+    static final class StageEvent extends Event {
+        @Label("Stage Index") int stage;
+        @Label("Stage") String label;
+        @Label("Stage Time") @Timespan(Timespan.NANOSECONDS) long stageNanos;
+        @Label("Delta") @Description("Change to the running subtotal, KZT") double delta;
+    }
+
+    @Override
+    public void onStage(int stage, String label, long nanos, double delta) {
+        StageEvent event = new StageEvent();
+        if (!event.isEnabled()) return;
+        event.stage = stage;
+        event.label = label;
+        event.stageNanos = nanos;
+        event.delta = delta;
+        event.commit();
+    }
+}
@@ -0,0 +1,75 @@
+package product.checkout;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram for latencies in nanoseconds (HdrHistogram-style):
+ * 16 linear sub-buckets per power of two, so any recorded value is reported within
+ * ~6% of its true value. record() is lock-free and safe from any thread: three atomic
+ * adds (bucket, count, sum) plus a CAS on max only when a new maximum is seen.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB = 1 << SUB_BITS; // sub-buckets per power of two
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long v = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(v));
+        total.incrementAndGet();
+        sum.addAndGet(v);
+        long m;
+        while (v > (m = max.get()) && !max.compareAndSet(m, v)) { /* retry */ }
+    }
+
+    public long count() { return total.get(); }
+    public long max() { return max.get(); }
+    public double mean() { long n = total.get(); return n == 0 ? 0 : (double) sum.get() / n; }
+
+    /** Value at the given quantile (0..1), e.g. 0.99 for p99; 0 when empty. */
+    public long percentile(double quantile) {
+        long n = total.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(Math.min(1.0, Math.max(0.0, quantile)) * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(valueOf(i), max.get());
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        total.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    static int indexOf(long v) {
+        if (v < SUB) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        int mantissa = (int) (v >>> (exp - SUB_BITS)) & (SUB - 1);
+        return (exp - SUB_BITS + 1) * SUB + mantissa;
+    }
+
+    /** Upper edge of a bucket (so percentiles never under-report). */
+    static long valueOf(int index) {
+        if (index < SUB) return index;
+        int exp = index / SUB + SUB_BITS - 1;
+        long mantissa = index % SUB;
+        long lower = (SUB + mantissa) << (exp - SUB_BITS);
+        return lower + (1L << (exp - SUB_BITS)) - 1;
+    }
+
+    @Override public String toString() {
+        return "n=%d mean=%.1fus p50=%.1fus p99=%.1fus max=%.1fus".formatted(count(), mean() / 1e3,
+            percentile(0.50) / 1e3, percentile(0.99) / 1e3, max() / 1e3);
+    }
+}
@@ -0,0 +1,20 @@
+package product.checkout;
+
+import product.pricing.PromotionOptimizer;
+
+/**
+ * Order-wide promotions: lets PromotionOptimizer pick the cheapest valid combination for
+ * the cart and subtracts its savings from the running subtotal. Use it with per-line
+ * stages that charge list price (no PromotionCharge), or discounts are counted twice.
+ */
+public class OptimizedPromotionCharge implements CartCharge {
+    private final PromotionOptimizer optimizer;
+    public OptimizedPromotionCharge(PromotionOptimizer optimizer) { this.optimizer = optimizer; }
+    @Override public String name() { return "OptimizedPromotions"; }
+    @Override public double apply(Cart cart, double subtotal) {
+        return subtotal - optimizer.optimize(cart.size(), cart::product, cart::quantity).savings();
+    }
+    @Override public long applyMinor(Cart cart, long subtotalMinor) {
+        return subtotalMinor - optimizer.optimize(cart.size(), cart::product, cart::quantity).savingsMinor();
+    }
+}
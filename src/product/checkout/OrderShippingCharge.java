@@ -0,0 +1,28 @@
+package product.checkout;
+
+import product.pricing.Money;
+
+/** One shipping fee per order; free once the total reaches the threshold. */
+public class OrderShippingCharge implements CartCharge {
+    private final double fee;           // >= 0
+    private final double freeThreshold; // >= 0
+    private final long feeMinor;
+    private final long freeThresholdMinor;
+    private final String name;
+    public OrderShippingCharge(double fee, double freeThreshold) {
+        this.fee = Math.max(0, fee);
+        this.freeThreshold = Math.max(0, freeThreshold);
+        this.feeMinor = Money.ofMajor(this.fee);
+        this.freeThresholdMinor = Money.ofMajor(this.freeThreshold);
+        this.name = "OrderShipping(" + this.fee + ", free>=" + this.freeThreshold + ")";
+    }
+    @Override public String name() { return name; }
+    @Override public double apply(Cart cart, double subtotal) {
+        if (cart.isEmpty() || subtotal >= freeThreshold) return subtotal;
+        return subtotal + fee;
+    }
+    @Override public long applyMinor(Cart cart, long subtotalMinor) {
+        if (cart.isEmpty() || subtotalMinor >= freeThresholdMinor) return subtotalMinor;
+        return subtotalMinor + feeMinor;
+    }
+}
@@ -0,0 +1,51 @@
+package product.checkout;
+
+import product.pricing.Money;
+import product.pricing.PricePolicy;
+import product.tax.TaxEngine;
+
+/**
+ * Order-wide tax by class (see TaxEngine). Each line enters its class base at its
+ * post-promotion total (the same PricePolicy the line pipeline's PromotionCharge uses), so a
+ * discount on one class lowers that class's tax only. When the running subtotal is below the
+ * summed bases (an order-wide discount ran earlier), the tax is scaled down pro rata. It is
+ * never scaled up: line-stage fees (shipping, environmental) in the running subtotal are
+ * not taxed. Place it before shipping-type cart charges, which are not taxed either.
+ */
+public class OrderTaxCharge implements CartCharge {
+    private final TaxEngine engine;
+    private final PricePolicy promotion; // null = lines at list price
+
+    /** Lines taxed at list price (a pipeline without per-line promotions). */
+    public OrderTaxCharge(TaxEngine engine) { this(engine, null); }
+
+    /** Lines taxed at promotion.applyMinor(p, qty): pass the policy of the pipeline's PromotionCharge. */
+    public OrderTaxCharge(TaxEngine engine, PricePolicy promotion) {
+        this.engine = engine;
+        this.promotion = promotion;
+    }
+
+    @Override public String name() { return "OrderTax"; }
+
+    @Override public double apply(Cart cart, double subtotal) {
+        TaxEngine.OrderTax t = compute(cart);
+        if (t.totalBaseMinor() == 0) return subtotal;
+        double taxable = Math.max(0.0, Math.min(subtotal, Money.toMajor(t.totalBaseMinor())));
+        return subtotal + taxable * ((double) t.totalTaxMinor() / t.totalBaseMinor());
+    }
+
+    @Override public long applyMinor(Cart cart, long subtotalMinor) {
+        TaxEngine.OrderTax t = compute(cart);
+        long base = t.totalBaseMinor();
+        if (base == 0) return subtotalMinor;
+        if (subtotalMinor >= base) return Math.addExact(subtotalMinor, t.totalTaxMinor()); // fees are not taxed
+        if (subtotalMinor <= 0) return subtotalMinor;
+        return subtotalMinor + Money.mulDiv(t.totalTaxMinor(), subtotalMinor, base);
+    }
+
+    private TaxEngine.OrderTax compute(Cart cart) {
+        if (promotion == null) return engine.compute(cart.size(), cart::product, cart::quantity);
+        return engine.compute(cart.size(), cart::product,
+            line -> promotion.applyMinor(cart.product(line), cart.quantity(line)), new TaxEngine.OrderTax());
+    }
+}
@@ -0,0 +1,20 @@
+package product.checkout;
+
+import product.pricing.Money;
+
+/** VAT on the order total (instead of per line). */
+public class OrderVatCharge implements CartCharge {
+    private final double percent; // e.g., 12.0
+    private final String name;
+    public OrderVatCharge(double percent) {
+        this.percent = Math.max(0, percent);
+        this.name = "OrderVat(" + this.percent + "%)";
+    }
+    @Override public String name() { return name; }
+    @Override public double apply(Cart cart, double subtotal) {
+        return subtotal + subtotal * (percent / 100.0);
+    }
+    @Override public long applyMinor(Cart cart, long subtotalMinor) {
+        return subtotalMinor + Money.percentOf(subtotalMinor, percent);
+    }
+}
@@ -0,0 +1,23 @@
+package product.checkout;
+
+import product.pricing.Money;
+import product.shipping.Parcel;
+import product.shipping.ShippingEngine;
+
+/** Order-wide shipping: packs the cart's physical lines into parcels and adds their price. */
+public class ParcelShippingCharge implements CartCharge {
+    private final ShippingEngine engine;
+    public ParcelShippingCharge(ShippingEngine engine) { this.engine = engine; }
+    @Override public String name() { return "ParcelShipping"; }
+    @Override public double apply(Cart cart, double subtotal) {
+        return subtotal + engine.quote(cart.size(), cart::product, cart::quantity).total();
+    }
+    /** Each distinct parcel's price rounded once to minor units, times its box count. */
+    @Override public long applyMinor(Cart cart, long subtotalMinor) {
+        long total = subtotalMinor;
+        for (Parcel parcel : engine.quote(cart.size(), cart::product, cart::quantity).parcels()) {
+            total = Math.addExact(total, Money.times(Money.ofMajor(parcel.price()), parcel.count()));
+        }
+        return total;
+    }
+}
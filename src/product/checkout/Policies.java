@@ -2,14 +2,24 @@ package product.checkout;
 
 import product.Product;
 import product.PhysicalProduct;
+import product.pricing.Money;
 
 public class Policies {
     /** Flat shipping for physical items based on product's estimate; free for digital. */
-    public static final ShippingPolicy SIMPLE = (Product p, int qty, double s) -> {
-        if (p instanceof PhysicalProduct pp) {
-            return pp.estimateShippingCost();
+    public static final ShippingPolicy SIMPLE = new Simple();
+
+    private static final class Simple implements ShippingPolicy {
+        @Override public double shipping(Product p, int qty, double s) {
+            if (p instanceof PhysicalProduct pp) {
+                return pp.estimateShippingCost();
+            }
+            return 0.0;
+        }
+
+        /** The estimate rounded once to minor units; the subtotal is not converted through double. */
+        @Override public long shippingMinor(Product p, int qty, long s) {
+            return p instanceof PhysicalProduct pp ? Money.ofMajor(pp.estimateShippingCost()) : 0;
         }
-        return 0.0;
-    };
+    }
 }
 
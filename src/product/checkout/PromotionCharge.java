@@ -5,11 +5,18 @@ import product.pricing.PricePolicy;
 
 public class PromotionCharge implements Charge {
     private final PricePolicy policy;
-    public PromotionCharge(PricePolicy policy) { this.policy = policy; }
-    @Override public String name() { return "Promotion(" + policy.name() + ")"; }
+    private final String name; // built once, not per checkout
+    public PromotionCharge(PricePolicy policy) {
+        this.policy = policy;
+        this.name = "Promotion(" + policy.name() + ")";
+    }
+    @Override public String name() { return name; }
     @Override public double apply(Product p, int qty, double subtotal) {
         // price with selected policy (ignores previous subtotal)
         return policy.apply(p, qty);
     }
+    @Override public long applyMinor(Product p, int qty, long subtotalMinor) {
+        return policy.applyMinor(p, qty);
+    }
 }
 
@@ -0,0 +1,133 @@
+package product.checkout;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import product.Product;
+
+/**
+ * Memoizes single-product quotes of one checkout plan, keyed by (product, version, qty).
+ * Product bumps its version on every price/quantity/category change, so a changed product
+ * simply misses and its stale entries age out of the bounded LRU. Concurrent misses for the
+ * same key are coalesced: one thread computes, the others wait for its result.
+ * Returned receipts are read-only snapshots shared between callers. Only cache plans whose
+ * charges depend on nothing but the product and qty (no clock- or session-based rules).
+ */
+public class QuoteCache {
+    private static final class Key {
+        final Product product; // identity: two catalogs may reuse an id
+        final int version;
+        final int qty;
+        Key(Product product, int version, int qty) { this.product = product; this.version = version; this.qty = qty; }
+        @Override public boolean equals(Object o) {
+            return o instanceof Key k && k.product == product && k.version == version && k.qty == qty;
+        }
+        @Override public int hashCode() {
+            return (System.identityHashCode(product) * 31 + version) * 31 + qty;
+        }
+    }
+
+    private final CompiledCheckout plan;
+    private final int maxEntries;
+    private final Map<Key, Receipt> cache;
+    private final ConcurrentHashMap<Key, CompletableFuture<Receipt>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public QuoteCache(CheckoutCalculator calculator, int maxEntries) { this(calculator.compile(), maxEntries); }
+
+    public QuoteCache(CompiledCheckout plan, int maxEntries) {
+        this.plan = plan;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) { // access order = LRU
+            @Override protected boolean removeEldestEntry(Map.Entry<Key, Receipt> eldest) {
+                if (size() <= QuoteCache.this.maxEntries) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    /** Same result as plan.checkout(p, qty), as a read-only snapshot. */
+    public Receipt checkout(Product p, int qty) {
+        Key key = new Key(p, p.getVersion(), qty);
+        Receipt cached = lookup(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        CompletableFuture<Receipt> mine = new CompletableFuture<>();
+        CompletableFuture<Receipt> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+        try {
+            Receipt r = lookup(key); // a leader may have finished between our lookup and putIfAbsent
+            if (r == null) {
+                misses.increment();
+                r = plan.checkout(p, qty, new Receipt()).snapshot();
+                // the product may have changed mid-quote: only keep results of an unchanged version
+                if (p.getVersion() == key.version) {
+                    synchronized (cache) {
+                        cache.put(key, r);
+                    }
+                }
+            } else {
+                hits.increment();
+            }
+            mine.complete(r);
+            return r;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private Receipt lookup(Key key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    public CompiledCheckout plan() { return plan; }
+
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public long hits() { return hits.sum(); }
+    public long misses() { return misses.sum(); }
+    /** Misses that waited for another thread's computation instead of running their own. */
+    public long coalesced() { return coalesced.sum(); }
+    public long evictions() { return evictions.sum(); }
+
+    public double hitRatio() {
+        long h = hits.sum(), total = h + misses.sum() + coalesced.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    @Override public String toString() {
+        return "QuoteCache{size=%d/%d, hitRatio=%.3f, coalesced=%d, evictions=%d}"
+            .formatted(size(), maxEntries, hitRatio(), coalesced(), evictions());
+    }
+}
@@ -1,20 +1,102 @@
 package product.checkout;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * Checkout result: one (stage label, delta) pair per line plus the total.
+ * Flyweight storage: parallel arrays holding references to the plan's shared labels,
+ * so filling a reused receipt allocates nothing. Reuse via clear(), pooled() or a
+ * caller-owned instance; call snapshot() to keep a result.
+ */
 public class Receipt {
     public static class Line {
         public final String name;
         public final double value;
         public Line(String name, double value){ this.name=name; this.value=value; }
     }
-    private final List<Line> lines = new ArrayList<>();
+
+    private static final ThreadLocal<Receipt> POOL = ThreadLocal.withInitial(Receipt::new);
+
+    private String[] names = new String[8];
+    private double[] values = new double[8];
+    private int size;
     private double total;
+    private boolean frozen;
+
+    /**
+     * This thread's reusable receipt, cleared. Valid until the next pooled() call on the
+     * same thread; snapshot() it to keep the result. Only worth it on long-lived (pooled)
+     * threads: a virtual thread per task gets a fresh pool entry each time, so allocate there.
+     */
+    public static Receipt pooled() {
+        Receipt r = POOL.get();
+        r.clear();
+        return r;
+    }
+
+    public void add(String name, double value) {
+        checkMutable();
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        names[size] = name;
+        values[size] = value;
+        size++;
+    }
 
-    public void add(String name, double value) { lines.add(new Line(name, value)); }
-    public void setTotal(double total) { this.total = total; }
-    public List<Line> lines(){ return lines; }
+    /** Accumulate into an existing line (used when summing a stage over cart lines). */
+    void addTo(int line, double delta) {
+        values[line] += delta;
+    }
+
+    public void setTotal(double total) { checkMutable(); this.total = total; }
+    /** Reset for reuse; keeps the array capacity. */
+    public void clear() {
+        checkMutable();
+        Arrays.fill(names, 0, size, null);
+        size = 0;
+        total = 0;
+    }
+
+    public int size() { return size; }
+    public String name(int line) { return names[checkLine(line)]; }
+    public double value(int line) { return values[checkLine(line)]; }
     public double total(){ return total; }
-}
 
+    /** Immutable copy of the lines (allocates; prefer size()/name(i)/value(i) on hot paths). */
+    public List<Line> lines(){
+        List<Line> out = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) out.add(new Line(names[i], values[i]));
+        return Collections.unmodifiableList(out);
+    }
+
+    /** Immutable copy that is safe to keep after this receipt is cleared or reused. */
+    public Receipt snapshot() {
+        Receipt copy = new Receipt();
+        copy.names = Arrays.copyOf(names, size);
+        copy.values = Arrays.copyOf(values, size);
+        copy.size = size;
+        copy.total = total;
+        copy.frozen = true;
+        return copy;
+    }
+
+    /** Make this receipt read-only in place; for a receipt nobody else holds (saves the snapshot copy). */
+    Receipt freeze() {
+        frozen = true;
+        return this;
+    }
+
+    private void checkMutable() {
+        if (frozen) throw new UnsupportedOperationException("receipt snapshot is read-only");
+    }
+
+    private int checkLine(int line) {
+        if (line < 0 || line >= size) throw new IndexOutOfBoundsException("line " + line + ", size " + size);
+        return line;
+    }
+}
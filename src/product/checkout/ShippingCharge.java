@@ -4,10 +4,17 @@ import product.Product;
 
 public class ShippingCharge implements Charge {
     private final ShippingPolicy policy;
-    public ShippingCharge(ShippingPolicy policy) { this.policy = policy; }
-    @Override public String name() { return "Shipping(" + policy.getClass().getSimpleName() + ")"; }
+    private final String name; // built once, not per checkout
+    public ShippingCharge(ShippingPolicy policy) {
+        this.policy = policy;
+        this.name = "Shipping(" + policy.getClass().getSimpleName() + ")";
+    }
+    @Override public String name() { return name; }
     @Override public double apply(Product p, int qty, double subtotal) {
         return subtotal + policy.shipping(p, qty, subtotal);
     }
+    @Override public long applyMinor(Product p, int qty, long subtotalMinor) {
+        return subtotalMinor + policy.shippingMinor(p, qty, subtotalMinor);
+    }
 }
 
@@ -1,8 +1,14 @@
 package product.checkout;
 
 import product.Product;
+import product.pricing.Money;
 
 public interface ShippingPolicy {
     double shipping(Product p, int qty, double subtotal);
+
+    /** Same as shipping(...) in minor units (see pricing.Money); default converts through double. */
+    default long shippingMinor(Product p, int qty, long subtotalMinor) {
+        return Money.ofMajor(shipping(p, qty, Money.toMajor(subtotalMinor)));
+    }
 }
 
@@ -0,0 +1,59 @@
+package product.checkout;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory CheckoutMetrics: per stage a latency histogram, invocation count, how
+ * often the stage changed the subtotal, and a histogram of |delta| in minor units.
+ * Recording is lock-free.
+ */
+public class StageMetrics implements CheckoutMetrics {
+    /** Counters for one pipeline stage. */
+    public static final class Stage {
+        public final String label;
+        public final LatencyHistogram latency = new LatencyHistogram();
+        public final LatencyHistogram absDeltaMinor = new LatencyHistogram();
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder changed = new LongAdder();
+
+        Stage(String label) { this.label = label; }
+
+        public long invocations() { return invocations.sum(); }
+        public long changedTotal() { return changed.sum(); }
+
+        @Override public String toString() {
+            return "%-32s calls=%d changed=%d latency[%s] |delta| p50=%.2f p99=%.2f".formatted(label,
+                invocations(), changedTotal(), latency,
+                absDeltaMinor.percentile(0.50) / 100.0, absDeltaMinor.percentile(0.99) / 100.0);
+        }
+    }
+
+    private final Stage[] stages;
+
+    /** Metrics sized and labelled for this plan's stages: line stages, then cart stages. */
+    public StageMetrics(CompiledCheckout plan) {
+        this.stages = new Stage[plan.stageCount() + plan.cartStageCount()];
+        for (int i = 0; i < stages.length; i++) stages[i] = new Stage(plan.label(i));
+    }
+
+    @Override
+    public void onStage(int stage, String label, long nanos, double delta) {
+        if (stage < 0 || stage >= stages.length) return;
+        Stage s = stages[stage];
+        s.invocations.increment();
+        s.latency.record(nanos);
+        if (delta != 0.0) {
+            s.changed.increment();
+            s.absDeltaMinor.record(Math.round(Math.abs(delta) * 100));
+        }
+    }
+
+    public int stageCount() { return stages.length; }
+    public Stage stage(int index) { return stages[index]; }
+
+    @Override public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Stage s : stages) sb.append(s).append('\n');
+        return sb.toString();
+    }
+}
@@ -5,10 +5,17 @@ import product.tax.TaxPolicy;
 
 public class TaxCharge implements Charge {
     private final TaxPolicy policy;
-    public TaxCharge(TaxPolicy policy) { this.policy = policy; }
-    @Override public String name() { return "Tax(" + policy.getClass().getSimpleName() + ")"; }
+    private final String name; // built once, not per checkout
+    public TaxCharge(TaxPolicy policy) {
+        this.policy = policy;
+        this.name = "Tax(" + policy.getClass().getSimpleName() + ")";
+    }
+    @Override public String name() { return name; }
     @Override public double apply(Product p, int qty, double subtotal) {
         return subtotal + policy.tax(p, qty, subtotal);
     }
+    @Override public long applyMinor(Product p, int qty, long subtotalMinor) {
+        return subtotalMinor + policy.taxMinor(p, qty, subtotalMinor);
+    }
 }
 
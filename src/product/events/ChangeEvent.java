@@ -0,0 +1,59 @@
+package product.events;
+
+import product.Product;
+
+/**
+ * One product change as seen by ChangeEventHandlers. Instances are ring-buffer slots that
+ * get overwritten once every handler has moved past them: read what you need inside
+ * onEvent and do not keep the reference.
+ */
+public final class ChangeEvent {
+    /** What kind of delta this is, derived from the before/after values. */
+    public enum Type {
+        /** trySetPrice or applyDiscount; see oldPrice/newPrice. */
+        PRICE_CHANGED,
+        /** addStock, or trySetQuantity/compareAndSetQuantity upwards. */
+        STOCK_ADDED,
+        /** sellProduct, or trySetQuantity/compareAndSetQuantity downwards. */
+        STOCK_REMOVED,
+        /** trySetName or trySetDescription; see oldName/oldDescription. */
+        TEXT_CHANGED
+    }
+
+    Type type;
+    Product product;
+    double oldPrice, newPrice;
+    int oldQuantity, newQuantity;
+    String oldName, oldDescription;
+    long sequence;
+
+    ChangeEvent() {}
+
+    public Type type() { return type; }
+    public Product product() { return product; }
+    /** Position in the bus, increasing by one per event. */
+    public long sequence() { return sequence; }
+
+    public double oldPrice() { return oldPrice; }
+    public double newPrice() { return newPrice; }
+    public double priceDelta() { return newPrice - oldPrice; }
+
+    public int oldQuantity() { return oldQuantity; }
+    public int newQuantity() { return newQuantity; }
+    public int quantityDelta() { return newQuantity - oldQuantity; }
+
+    /** Change in price * quantity; sums to the change in total stock value in any order. */
+    public double valueDelta() { return newPrice * newQuantity - oldPrice * oldQuantity; }
+
+    /** Only set for TEXT_CHANGED. */
+    public String oldName() { return oldName; }
+    public String oldDescription() { return oldDescription; }
+
+    @Override public String toString() {
+        return switch (type) {
+            case PRICE_CHANGED -> "#%d %s %s %.2f -> %.2f".formatted(sequence, type, product.getId(), oldPrice, newPrice);
+            case TEXT_CHANGED -> "#%d %s %s '%s'".formatted(sequence, type, product.getId(), product.getName());
+            default -> "#%d %s %s %d -> %d".formatted(sequence, type, product.getId(), oldQuantity, newQuantity);
+        };
+    }
+}
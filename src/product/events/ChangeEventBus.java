@@ -0,0 +1,295 @@
+package product.events;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import product.Product;
+import product.ProductListener;
+
+/**
+ * Opt-in stream of product changes: attach(p) subscribes the bus to p, and every
+ * price/stock/text mutation is copied into a preallocated ring of ChangeEvent slots that
+ * each handler reads on its own thread, in batches, without locks (Disruptor-style).
+ *
+ * Mutators run on many threads, so publishing claims a slot with a CAS on the cursor and
+ * marks it available per slot; handlers only advance over a contiguous published run.
+ * Publishing never blocks on a handler unless the ring is full: by default the mutator
+ * then waits for the slowest handler (no event lost); with dropWhenFull, or while the bus
+ * is not running, it counts the event as dropped and returns.
+ *
+ * Handlers must not wait on the ring: a handler that mutates an attached product while the
+ * ring is full would wait for its own progress. Publishing from a handler thread therefore
+ * never blocks; on a full ring the event is dropped. Events published after close() are
+ * dropped too, and every dropped event is counted in dropped().
+ *
+ * Sequence order is claim order, so two concurrent mutations of one product may arrive
+ * in either order; deltas (quantityDelta, valueDelta) still add up to the right totals.
+ */
+public class ChangeEventBus implements ProductListener, AutoCloseable {
+    private static final int SPIN_TRIES = 100;
+    private static final long IDLE_PARK_NANOS = 50_000; // handler wake-up latency when idle
+
+    private final ChangeEvent[] ring;
+    private final int mask;
+    private final int shift;                     // log2(capacity); slot round = seq >>> shift
+    private final AtomicIntegerArray published;  // round last published per slot
+    private final AtomicLong cursor = new AtomicLong(-1); // highest claimed sequence
+    private volatile long gatingCache = -1;     // slowest handler, as last seen by producers
+    private final boolean dropWhenFull;
+
+    private final Consumer[] consumers;
+    private final Set<Product> attached = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private volatile boolean running;
+    private volatile boolean closed;            // set before running drops; read after each claim
+
+    /** capacity is rounded up to a power of two, at most 2^30. */
+    public ChangeEventBus(int capacity, boolean dropWhenFull, ChangeEventHandler... handlers) {
+        if (handlers.length == 0) throw new IllegalArgumentException("no handlers");
+        if (capacity > 1 << 30) throw new IllegalArgumentException("capacity above 2^30: " + capacity);
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.ring = new ChangeEvent[size];
+        for (int i = 0; i < size; i++) ring[i] = new ChangeEvent();
+        this.mask = size - 1;
+        this.shift = Integer.numberOfTrailingZeros(size);
+        this.published = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) published.set(i, -1);
+        this.dropWhenFull = dropWhenFull;
+        this.consumers = new Consumer[handlers.length];
+        for (int i = 0; i < handlers.length; i++) consumers[i] = new Consumer(handlers[i], "change-events-" + i);
+    }
+
+    /** Start the handler threads; a closed bus cannot be restarted. */
+    public synchronized ChangeEventBus start() {
+        if (running) return this;
+        if (closed || consumers[0].thread.getState() != Thread.State.NEW) throw new IllegalStateException("bus closed");
+        running = true;
+        for (Consumer c : consumers) c.thread.start();
+        return this;
+    }
+
+    /** Subscribe to a product's changes; false if null or already attached. */
+    public boolean attach(Product p) {
+        if (p == null) return false;
+        synchronized (attached) {
+            if (!attached.add(p)) return false;
+        }
+        p.addListener(this);
+        return true;
+    }
+
+    /** Returns how many were attached. */
+    public int attachAll(Collection<? extends Product> products) {
+        int n = 0;
+        for (Product p : products) {
+            if (attach(p)) n++;
+        }
+        return n;
+    }
+
+    public boolean detach(Product p) {
+        if (p == null) return false;
+        synchronized (attached) {
+            if (!attached.remove(p)) return false;
+        }
+        p.removeListener(this);
+        return true;
+    }
+
+    @Override
+    public void onValueChanged(Product p, double oldPrice, int oldQuantity, double newPrice, int newQuantity) {
+        ChangeEvent.Type type;
+        if (oldPrice != newPrice) type = ChangeEvent.Type.PRICE_CHANGED;
+        else if (newQuantity > oldQuantity) type = ChangeEvent.Type.STOCK_ADDED;
+        else if (newQuantity < oldQuantity) type = ChangeEvent.Type.STOCK_REMOVED;
+        else return; // no delta
+        long seq = claim();
+        if (seq < 0) return;
+        ChangeEvent e = ring[(int) seq & mask];
+        e.type = type;
+        e.product = p;
+        e.oldPrice = oldPrice;
+        e.newPrice = newPrice;
+        e.oldQuantity = oldQuantity;
+        e.newQuantity = newQuantity;
+        e.oldName = null;
+        e.oldDescription = null;
+        e.sequence = seq;
+        published.lazySet((int) seq & mask, (int) (seq >>> shift));
+    }
+
+    @Override
+    public void onTextChanged(Product p, String oldName, String oldDescription) {
+        long seq = claim();
+        if (seq < 0) return;
+        ChangeEvent e = ring[(int) seq & mask];
+        e.type = ChangeEvent.Type.TEXT_CHANGED;
+        e.product = p;
+        e.oldPrice = e.newPrice = p.getPrice();
+        e.oldQuantity = e.newQuantity = p.getQuantity();
+        e.oldName = oldName;
+        e.oldDescription = oldDescription;
+        e.sequence = seq;
+        published.lazySet((int) seq & mask, (int) (seq >>> shift));
+    }
+
+    /** Next free sequence, or -1 if the event is dropped (ring full, or bus closed). */
+    private long claim() {
+        while (true) {
+            if (closed) {
+                dropped.increment();
+                return -1;
+            }
+            long current = cursor.get();
+            long next = current + 1;
+            long wrapPoint = next - ring.length; // the slot's previous occupant
+            if (wrapPoint > gatingCache) {
+                long slowest = slowestSequence();
+                gatingCache = slowest;
+                if (wrapPoint > slowest) {
+                    if (dropWhenFull || !running || onHandlerThread()) { // nobody would free a slot
+                        dropped.increment();
+                        return -1;
+                    }
+                    LockSupport.parkNanos(1_000);
+                    continue;
+                }
+            }
+            if (!cursor.compareAndSet(current, next)) continue;
+            if (closed) { // handlers may have drained and stopped: publish a skipped slot, count it
+                ring[(int) next & mask].type = null;
+                published.lazySet((int) next & mask, (int) (next >>> shift));
+                dropped.increment();
+                return -1;
+            }
+            return next;
+        }
+    }
+
+    private boolean onHandlerThread() {
+        Thread self = Thread.currentThread();
+        for (Consumer c : consumers) {
+            if (c.thread == self) return true;
+        }
+        return false;
+    }
+
+    private long slowestSequence() {
+        long min = Long.MAX_VALUE;
+        for (Consumer c : consumers) min = Math.min(min, c.sequence.get());
+        return min;
+    }
+
+    /** Events claimed so far (published or about to be; includes any dropped after close). */
+    public long published() { return cursor.get() + 1; }
+    public long dropped() { return dropped.sum(); }
+    /** Exceptions thrown by handlers (the event is skipped for that handler). */
+    public long errors() { return errors.sum(); }
+    /** Events the slowest handler has not processed yet. */
+    public long lag() { return cursor.get() - slowestSequence(); }
+    public int capacity() { return ring.length; }
+
+    /** Block until every handler has processed everything published so far, or timeout. */
+    public boolean awaitDrained(long timeoutMillis) throws InterruptedException {
+        long target = cursor.get();
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000;
+        while (slowestSequence() < target) {
+            if (System.nanoTime() > deadline) return false;
+            if (Thread.interrupted()) throw new InterruptedException();
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * Detach from all products, let handlers drain what was published, stop their threads.
+     * If interrupted while waiting, returns early with the interrupt flag set; the handlers
+     * still drain and stop on their own.
+     */
+    @Override
+    public void close() {
+        List<Product> products;
+        synchronized (attached) {
+            products = new ArrayList<>(attached);
+            attached.clear();
+        }
+        for (Product p : products) p.removeListener(this);
+        synchronized (this) {
+            closed = true;
+            if (!running) return;
+            running = false;
+        }
+        for (Consumer c : consumers) {
+            LockSupport.unpark(c.thread);
+            if (c.thread == Thread.currentThread()) continue; // closed from a handler
+            try {
+                c.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override public String toString() {
+        return "ChangeEventBus{capacity=%d, handlers=%d, published=%d, lag=%d, dropped=%d, errors=%d}"
+            .formatted(ring.length, consumers.length, published(), lag(), dropped(), errors());
+    }
+
+    /** One handler's thread and progress; its sequence gates producers from reusing slots. */
+    private final class Consumer implements Runnable {
+        final ChangeEventHandler handler;
+        final AtomicLong sequence = new AtomicLong(-1); // last event processed
+        final Thread thread;
+
+        Consumer(ChangeEventHandler handler, String name) {
+            this.handler = handler;
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+        }
+
+        @Override public void run() {
+            int idle = 0;
+            while (true) {
+                long next = sequence.get() + 1;
+                long end = highestPublished(next, cursor.get());
+                if (end < next) {
+                    if (!running && next > cursor.get()) return; // drained after close
+                    if (++idle < SPIN_TRIES) Thread.onSpinWait();
+                    else if (idle < 2 * SPIN_TRIES) Thread.yield();
+                    else LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+                idle = 0;
+                long last = end; // last event to deliver: slots dropped after close are skipped
+                while (last >= next && ring[(int) last & mask].type == null) last--;
+                for (long seq = next; seq <= last; seq++) {
+                    ChangeEvent e = ring[(int) seq & mask];
+                    if (e.type == null) continue;
+                    try {
+                        handler.onEvent(e, seq == last);
+                    } catch (RuntimeException ex) {
+                        errors.increment();
+                    }
+                }
+                sequence.lazySet(end); // frees the batch's slots for producers
+            }
+        }
+
+        /** Last sequence of the contiguous published run starting at from (from - 1 if none). */
+        private long highestPublished(long from, long claimed) {
+            for (long seq = from; seq <= claimed; seq++) {
+                if (published.get((int) seq & mask) != (int) (seq >>> shift)) return seq - 1;
+            }
+            return claimed;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package product.events;
+
+/** Consumer of a ChangeEventBus; each handler runs on its own thread and sees every event. */
+@FunctionalInterface
+public interface ChangeEventHandler {
+    /**
+     * Called in sequence order. endOfBatch is true for the last event currently available,
+     * so a handler can buffer work and apply it once per batch.
+     */
+    void onEvent(ChangeEvent event, boolean endOfBatch);
+}
@@ -0,0 +1,406 @@
+package product.inventory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import product.Product;
+import product.catalog.Catalog;
+
+/**
+ * Durable stock history on local disk: an append-only journal of stock events plus
+ * periodic compact snapshots.
+ *
+ * Appends only encode into an in-memory buffer; a single writer thread flushes the
+ * buffer with one FileChannel.force per batch (group commit), so many concurrent
+ * appends share one fsync. Every snapshotEvery records the writer also dumps the full
+ * quantity map to snapshot.bin (temp file + atomic rename) and truncates the journal,
+ * so startup replays at most one snapshot interval of records. A torn record at the
+ * journal tail (crash mid-write) is detected by its CRC and cut off on recovery.
+ *
+ * Records are SET (absolute quantity, e.g. initial stock) or ADD (signed delta).
+ * Deltas commute, but a SET does not commute with them: recordSet(id, supplier) and
+ * recordChange read or make the change under a lock striped by product id, so a base
+ * quantity and the deltas around it are journaled in the order they happened, while
+ * changes to different products only meet in the short buffer append.
+ *
+ * The snapshot checksum covers every byte of the file before it (header, ids, quantities).
+ */
+public class InventoryJournal implements Closeable {
+    static final byte SET = 1;
+    static final byte ADD = 2;
+
+    private static final int SNAPSHOT_MAGIC = 0x534e5032; // "SNP2": CRC over the whole file
+    private static final int LEGACY_SNAPSHOT_MAGIC = 0x534e4150; // "SNAP": CRC over ids and low quantity bytes
+    private static final int STRIPES = 64;
+    private static final String JOURNAL_FILE = "journal.log";
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+
+    private final Path dir;
+    private final FileChannel journal;
+    private final long flushIntervalMillis;
+    private final int snapshotEvery;
+    private final Thread writer;
+    private final Object[] stripes = new Object[STRIPES]; // per-id order of change + record
+
+    // Guarded by this
+    private final Map<String, Integer> state = new HashMap<>();
+    private ByteBuffer pending = ByteBuffer.allocate(1 << 16);
+    private ByteBuffer spare = ByteBuffer.allocate(1 << 16);
+    private long lastSeq;
+    private long durableSeq;
+    private int recordsSinceSnapshot;
+    private boolean snapshotRequested;
+    private boolean accepting = true; // false once close() starts: no new recordChange
+    private boolean closed;           // no more appends; the writer drains and stops
+    private boolean writerDone;       // nothing more will become durable
+    private IOException failure;
+
+    /** Open (or create) the journal in dir and recover its state. */
+    public InventoryJournal(Path dir, long flushIntervalMillis, int snapshotEvery) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.flushIntervalMillis = Math.max(1, flushIntervalMillis);
+        this.snapshotEvery = Math.max(1, snapshotEvery);
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Object();
+        long snapshotSeq = readSnapshot();
+        this.journal = FileChannel.open(dir.resolve(JOURNAL_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        replay(snapshotSeq);
+        this.durableSeq = lastSeq;
+        this.writer = new Thread(this::writeLoop, "inventory-journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /** Record an absolute quantity (e.g. when a product starts being tracked). Returns its sequence number. */
+    public synchronized long recordSet(String productId, int quantity) {
+        checkOpen();
+        return append(SET, productId, quantity);
+    }
+
+    /** Record a signed stock change. Returns its sequence number. */
+    public synchronized long recordAdd(String productId, int delta) {
+        checkOpen();
+        return append(ADD, productId, delta);
+    }
+
+    /** Record the quantity read under the id's stripe lock, ordered against recordChange. */
+    public long recordSet(String productId, IntSupplier quantity) {
+        synchronized (stripeOf(productId)) {
+            checkOpen();
+            return appendSet(productId, quantity);
+        }
+    }
+
+    /**
+     * Make a stock change and record it as one step under the id's stripe lock. change returns
+     * false if nothing changed (nothing is recorded; returns -1). An id never recorded
+     * before gets a SET of quantityAfter instead of the delta, so it does not replay from 0.
+     * Once the open check passes, the record is appended even if close() starts meanwhile.
+     */
+    public long recordChange(String productId, int delta, BooleanSupplier change, IntSupplier quantityAfter) {
+        synchronized (stripeOf(productId)) {
+            checkOpen(); // fail before changing stock we could not record
+            if (!change.getAsBoolean()) return -1;
+            return appendChange(productId, delta, quantityAfter);
+        }
+    }
+
+    private synchronized long appendSet(String productId, IntSupplier quantity) {
+        return append(SET, productId, quantity.getAsInt());
+    }
+
+    private synchronized long appendChange(String productId, int delta, IntSupplier quantityAfter) {
+        return state.containsKey(productId) ? append(ADD, productId, delta)
+                                            : append(SET, productId, quantityAfter.getAsInt());
+    }
+
+    private Object stripeOf(String productId) {
+        int h = productId.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    private long append(byte type, String productId, int value) { // caller holds this
+        if (failure != null) throw new UncheckedIOException(failure);
+        if (closed) throw new IllegalStateException("journal closed");
+        byte[] id = productId.getBytes(StandardCharsets.UTF_8);
+        if (id.length > Short.MAX_VALUE) throw new IllegalArgumentException("product id too long");
+        long seq = ++lastSeq;
+        int payload = 8 + 1 + 2 + id.length + 4;
+        ensurePending(8 + payload);
+        int at = pending.position();
+        pending.putInt(payload).putInt(0); // crc patched below
+        pending.putLong(seq).put(type).putShort((short) id.length).put(id).putInt(value);
+        CRC32C crc = new CRC32C();
+        crc.update(pending.array(), at + 8, payload);
+        pending.putInt(at + 4, (int) crc.getValue());
+        apply(type, productId, value);
+        recordsSinceSnapshot++;
+        if (pending.position() > (1 << 20) || recordsSinceSnapshot >= snapshotEvery) notifyAll();
+        return seq;
+    }
+
+    /**
+     * Block until every record up to seq is on disk (triggers an immediate flush). During
+     * close() this waits for the final flush and fails only if seq did not make it.
+     */
+    public synchronized void awaitDurable(long seq) throws IOException {
+        notifyAll();
+        while (durableSeq < seq) {
+            if (failure != null) throw failure;
+            if (writerDone) throw new IOException("journal closed");
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted waiting for journal flush", e);
+            }
+        }
+    }
+
+    /** Force a snapshot now and wait for it (normally done every snapshotEvery records). */
+    public synchronized void snapshot() throws IOException {
+        checkOpen();
+        snapshotRequested = true;
+        long target = lastSeq;
+        awaitDurable(target);
+        while (snapshotRequested && failure == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted waiting for snapshot", e);
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    /** Current quantity for an id as recorded by the journal, or null if never recorded. */
+    public synchronized Integer quantityOf(String productId) { return state.get(productId); }
+
+    /** Copy of all recorded quantities (what recovery would restore right now). */
+    public synchronized Map<String, Integer> quantities() { return new HashMap<>(state); }
+
+    /** Apply recorded quantities to the catalog's products; returns how many were restored. */
+    public int restoreInto(Catalog catalog) {
+        int restored = 0;
+        for (Map.Entry<String, Integer> e : quantities().entrySet()) {
+            Product p = catalog.get(e.getKey());
+            if (p != null && p.trySetQuantity(e.getValue())) restored++;
+        }
+        return restored;
+    }
+
+    public synchronized long lastSequence() { return lastSeq; }
+    public synchronized long durableSequence() { return durableSeq; }
+
+    /** Let changes already past their open check record, flush everything pending, stop the writer. */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (!accepting) return;
+            accepting = false;
+        }
+        for (Object stripe : stripes) {
+            synchronized (stripe) { /* wait out a recordChange in flight on this stripe */ }
+        }
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+        synchronized (this) {
+            if (failure != null) throw failure;
+        }
+    }
+
+    // ---------------------------------------------------------------- writer thread
+
+    private void writeLoop() {
+        while (true) {
+            ByteBuffer batch;
+            long batchSeq;
+            Map<String, Integer> snapshotState = null;
+            long snapshotSeq = 0;
+            synchronized (this) {
+                while (!closed && pending.position() == 0 && !snapshotRequested) {
+                    try {
+                        wait(flushIntervalMillis);
+                    } catch (InterruptedException e) {
+                        closed = true;
+                    }
+                }
+                if (pending.position() == 0 && !snapshotRequested && closed) {
+                    writerDone = true;
+                    notifyAll();
+                    return;
+                }
+                batch = pending;
+                pending = spare;
+                pending.clear();
+                spare = batch;
+                batchSeq = lastSeq;
+                if (snapshotRequested || recordsSinceSnapshot >= snapshotEvery) {
+                    snapshotState = new HashMap<>(state); // exactly the records <= lastSeq
+                    snapshotSeq = lastSeq;
+                    recordsSinceSnapshot = 0;
+                }
+            }
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) journal.write(batch);
+                journal.force(false);
+                if (snapshotState != null) {
+                    writeSnapshot(snapshotState, snapshotSeq);
+                    journal.truncate(0); // everything in it is now covered by the snapshot
+                    journal.position(0);
+                    journal.force(true);
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                    closed = true;
+                    writerDone = true;
+                    snapshotRequested = false;
+                    notifyAll();
+                }
+                return;
+            }
+            synchronized (this) {
+                durableSeq = Math.max(durableSeq, batchSeq);
+                if (snapshotState != null) snapshotRequested = false;
+                notifyAll();
+            }
+        }
+    }
+
+    private void writeSnapshot(Map<String, Integer> quantities, long seq) throws IOException {
+        Path tmp = dir.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                               StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream os = new BufferedOutputStream(Channels.newOutputStream(ch), 1 << 16);
+             CheckedOutputStream checked = new CheckedOutputStream(os, new CRC32C());
+             DataOutputStream out = new DataOutputStream(checked)) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(seq);
+            out.writeInt(quantities.size());
+            for (Map.Entry<String, Integer> e : quantities.entrySet()) {
+                byte[] id = e.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeShort(id.length);
+                out.write(id);
+                out.writeInt(e.getValue());
+            }
+            out.writeInt((int) checked.getChecksum().getValue());
+            out.flush();
+            ch.force(true);
+        }
+        Files.move(tmp, dir.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // ---------------------------------------------------------------- recovery
+
+    private long readSnapshot() throws IOException {
+        Path file = dir.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(file)) return 0;
+        try (InputStream is = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+             CheckedInputStream checked = new CheckedInputStream(is, new CRC32C());
+             DataInputStream in = new DataInputStream(checked)) {
+            int magic = in.readInt();
+            boolean legacy = magic == LEGACY_SNAPSHOT_MAGIC;
+            if (magic != SNAPSHOT_MAGIC && !legacy) throw new IOException(file + ": not a snapshot");
+            long seq = in.readLong();
+            int count = in.readInt();
+            CRC32C legacyCrc = new CRC32C();
+            for (int i = 0; i < count; i++) {
+                byte[] id = new byte[in.readUnsignedShort()];
+                in.readFully(id);
+                int qty = in.readInt();
+                if (legacy) {
+                    legacyCrc.update(id);
+                    legacyCrc.update(qty);
+                }
+                state.put(new String(id, StandardCharsets.UTF_8), qty);
+            }
+            long expected = legacy ? legacyCrc.getValue() : checked.getChecksum().getValue();
+            if (in.readInt() != (int) expected) throw new IOException(file + ": snapshot checksum mismatch");
+            lastSeq = seq;
+            return seq;
+        } catch (EOFException e) {
+            throw new IOException(file + ": truncated snapshot", e);
+        }
+    }
+
+    private void replay(long snapshotSeq) throws IOException {
+        long size = journal.size();
+        ByteBuffer buf = ByteBuffer.allocate((int) Math.min(size, Integer.MAX_VALUE - 8));
+        journal.read(buf, 0);
+        buf.flip();
+        CRC32C crc = new CRC32C();
+        long validEnd = 0;
+        while (buf.remaining() >= 8) {
+            int at = buf.position();
+            int payload = buf.getInt();
+            int expected = buf.getInt();
+            if (payload < 15 || payload > buf.remaining()) break; // torn tail
+            crc.reset();
+            crc.update(buf.array(), at + 8, payload);
+            if ((int) crc.getValue() != expected) break;
+            long seq = buf.getLong();
+            byte type = buf.get();
+            byte[] id = new byte[buf.getShort()];
+            buf.get(id);
+            int value = buf.getInt();
+            if (seq > snapshotSeq) {
+                apply(type, new String(id, StandardCharsets.UTF_8), value);
+                lastSeq = Math.max(lastSeq, seq);
+            }
+            validEnd = buf.position();
+        }
+        if (validEnd < size) journal.truncate(validEnd); // drop a torn record from a crash
+        journal.position(validEnd);
+    }
+
+    private void apply(byte type, String productId, int value) {
+        if (type == SET) state.put(productId, value);
+        else state.merge(productId, value, Integer::sum);
+    }
+
+    private void ensurePending(int bytes) {
+        if (pending.remaining() >= bytes) return;
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+        pending.flip();
+        bigger.put(pending);
+        pending = bigger;
+    }
+
+    private synchronized void checkOpen() {
+        if (failure != null) throw new UncheckedIOException(failure);
+        if (!accepting || closed) throw new IllegalStateException("journal closed");
+    }
+}
@@ -2,23 +2,70 @@ package product.inventory;
 
 import product.Product;
 
+/**
+ * Stock changes for products. Safe for concurrent use: every update is a
+ * compare-and-set retry loop on the product's quantity, so parallel checkouts
+ * neither oversell nor lose updates. Once a ReservationService is built on this service,
+ * sell(...) only sells units that are not held; held units are sold by committing the hold.
+ */
 public class InventoryService {
+    private volatile ReservationService reservations; // attached by its constructor; null = no holds
+
+    /** Called by ReservationService's constructor; one reservation service per inventory. */
+    void attach(ReservationService r) {
+        if (reservations != null && reservations != r) throw new IllegalStateException("inventory already has a ReservationService");
+        reservations = r;
+    }
+
+    void detach(ReservationService r) {
+        if (reservations == r) reservations = null;
+    }
+
     /**
      * Increase quantity by amount (>0). Return true if applied.
      */
     public boolean addStock(Product p, int amount) {
         if (p == null || amount <= 0) return false;
-        long next = (long) p.getQuantity() + amount;
-        if (next > 1_000_000L) return false;
-        return p.trySetQuantity((int) next);
+        while (true) {
+            int current = p.getQuantity();
+            long next = (long) current + amount; // avoid overflow
+            if (next > 1_000_000L) return false;
+            if (p.compareAndSetQuantity(current, (int) next)) return true;
+        }
     }
 
     /**
-     * Sell (reduce) quantity by amount (>0 and <= current). Return true if applied.
+     * Sell (reduce) quantity by amount (>0 and <= what is not held by reservations).
+     * Return true if applied.
      */
     public boolean sell(Product p, int amount) {
-        if (p == null || amount <= 0 || amount > p.getQuantity()) return false;
-        return p.trySetQuantity(p.getQuantity() - amount);
+        return sell(p, amount, false);
     }
-}
 
+    /** ReservationService's commit: the units are this service's own holds, so holds do not limit it. */
+    final boolean sellHeld(Product p, int amount) {
+        return sell(p, amount, true);
+    }
+
+    /**
+     * The sale behind sell and sellHeld; subclasses override this one to see both.
+     * @param held the units belong to a hold being committed (they are counted in reservedUnits)
+     */
+    protected boolean sell(Product p, int amount, boolean held) {
+        if (p == null || amount <= 0) return false;
+        ReservationService r = held ? null : reservations;
+        while (true) {
+            int current = p.getQuantity();
+            if (amount > (r == null ? current : current - r.reservedUnits(p))) return false;
+            if (p.compareAndSetQuantity(current, current - amount)) break;
+        }
+        // Quantity written, now re-read the holds (reserve does the mirror image): of a sale and
+        // a hold racing for the same units at least one sees the other and backs out.
+        if (r == null) return true;
+        while (true) {
+            int current = p.getQuantity();
+            if (r.reservedUnits(p) <= current) return true; // no conflict, or stock arrived meanwhile
+            if (p.compareAndSetQuantity(current, current + amount)) return false;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package product.inventory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import product.Product;
+
+/**
+ * InventoryService that records every successful stock change in an InventoryJournal.
+ * Each change and its record are made as one step under the product id's journal lock, so
+ * the journal replays to the same quantities even when track() races with sells. A product that was
+ * never tracked is tracked on its first change (its new quantity is journaled as the base).
+ * With syncCommit, each call returns only after its record is on disk (concurrent calls
+ * share one fsync); otherwise records reach disk within the journal's flush interval.
+ */
+public class JournaledInventoryService extends InventoryService {
+    private final InventoryJournal journal;
+    private final boolean syncCommit;
+
+    public JournaledInventoryService(InventoryJournal journal, boolean syncCommit) {
+        this.journal = journal;
+        this.syncCommit = syncCommit;
+    }
+
+    /** Start tracking a product: journals its current quantity as the base for later deltas. */
+    public void track(Product p) {
+        if (p == null) return;
+        commit(journal.recordSet(p.getId(), p::getQuantity));
+    }
+
+    @Override
+    public boolean addStock(Product p, int amount) {
+        if (p == null || amount <= 0) return false;
+        return commit(journal.recordChange(p.getId(), amount, () -> super.addStock(p, amount), p::getQuantity));
+    }
+
+    /** Direct sells and committed holds alike. */
+    @Override
+    protected boolean sell(Product p, int amount, boolean held) {
+        if (p == null || amount <= 0) return false;
+        return commit(journal.recordChange(p.getId(), -amount, () -> super.sell(p, amount, held), p::getQuantity));
+    }
+
+    /** false if nothing was recorded (seq < 0). */
+    private boolean commit(long seq) {
+        if (seq < 0) return false;
+        if (!syncCommit) return true;
+        try {
+            journal.awaitDurable(seq);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+}
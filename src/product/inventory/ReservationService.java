@@ -0,0 +1,230 @@
+package product.inventory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import product.Product;
+import product.catalog.Catalog;
+
+/**
+ * Holds stock for in-flight checkouts: reserve(...) returns a token, then commit(token)
+ * sells the held units or release(token) returns them. Holds that are neither committed
+ * nor released expire after their TTL.
+ *
+ * Reserved units are counted per product in an AtomicInteger, so availableToSell(p) is a
+ * lock-free read (quantity - reserved) no matter how many holds exist. A counter that
+ * drops to zero is retired (set to -1) and removed, so the map only holds products with
+ * outstanding holds; reserve() replaces a retired counter it runs into. Expiry is driven
+ * by a hashed timer wheel advanced by one ticker thread: a hold is dropped into the slot
+ * of its deadline, and each tick only looks at one slot, instead of scheduling one task
+ * per hold.
+ *
+ * The service attaches to its InventoryService, whose direct sell(...) then leaves held
+ * units alone: availableToSell never goes negative, so every outstanding hold can commit.
+ */
+public class ReservationService implements AutoCloseable {
+    /** One hold; state moves HELD -> COMMITTED/RELEASED/EXPIRED exactly once. */
+    private static final class Hold {
+        static final int HELD = 0, DONE = 1;
+        final long token;
+        final Product product;
+        final int qty;
+        final long deadlineTick;
+        final AtomicInteger state = new AtomicInteger(HELD);
+        Hold(long token, Product product, int qty, long deadlineTick) {
+            this.token = token;
+            this.product = product;
+            this.qty = qty;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final Catalog catalog;
+    private final InventoryService inventory;
+    private final long tickMillis;
+    private final ConcurrentLinkedQueue<Hold>[] wheel;
+    private final Map<Long, Hold> holds = new ConcurrentHashMap<>();
+    private final Map<Product, AtomicInteger> reserved = new ConcurrentHashMap<>();
+    private final AtomicLong tokens = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final ScheduledExecutorService ticker;
+    private volatile long currentTick;
+
+    public ReservationService(Catalog catalog, InventoryService inventory) {
+        this(catalog, inventory, 100, 512);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ReservationService(Catalog catalog, InventoryService inventory, long tickMillis, int wheelSize) {
+        this.catalog = catalog;
+        this.inventory = inventory;
+        inventory.attach(this);
+        this.tickMillis = Math.max(1, tickMillis);
+        this.wheel = (ConcurrentLinkedQueue<Hold>[]) new ConcurrentLinkedQueue<?>[Math.max(2, wheelSize)];
+        for (int i = 0; i < wheel.length; i++) wheel[i] = new ConcurrentLinkedQueue<>();
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reservation-timer-wheel");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::tick, this.tickMillis, this.tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Hold qty units of the catalog product with this id; returns a token, or -1 if not possible. */
+    public long reserve(String productId, int qty, long ttlMillis) {
+        return reserve(catalog == null ? null : catalog.get(productId), qty, ttlMillis);
+    }
+
+    /** Hold qty units for ttlMillis; returns a token, or -1 if not enough is available. */
+    public long reserve(Product p, int qty, long ttlMillis) {
+        if (p == null || qty <= 0 || ttlMillis <= 0) return -1;
+        AtomicInteger held = reserved.computeIfAbsent(p, k -> new AtomicInteger());
+        while (true) {
+            int current = held.get();
+            if (current < 0) { // retired by unreserve: swap in a live counter
+                reserved.remove(p, held);
+                held = reserved.computeIfAbsent(p, k -> new AtomicInteger());
+                continue;
+            }
+            if ((long) current + qty > p.getQuantity()) return -1;
+            if (held.compareAndSet(current, current + qty)) {
+                // Hold written, now re-read the quantity (InventoryService.sell does the mirror image)
+                if ((long) current + qty <= p.getQuantity()) break;
+                unreserve(p, held, qty);
+                return -1;
+            }
+        }
+        long ticks = (ttlMillis + tickMillis - 1) / tickMillis;
+        Hold hold = new Hold(tokens.incrementAndGet(), p, qty, currentTick + Math.max(1, ticks));
+        holds.put(hold.token, hold);
+        enqueue(hold);
+        return hold.token;
+    }
+
+    /**
+     * Put the hold in its deadline's slot. If the ticker reached that slot before the add
+     * (it advanced while reserve ran), it may have missed the hold; requeue it into the next
+     * slot so it expires on time instead of a full lap later. A stale copy left behind is
+     * skipped by tick() once the hold is done.
+     */
+    private void enqueue(Hold hold) {
+        long slotTick = hold.deadlineTick;
+        while (true) {
+            wheel[(int) (slotTick % wheel.length)].add(hold);
+            long now = currentTick;
+            if (now < slotTick) return; // that slot's tick comes after the add, so it sees the hold
+            slotTick = now + 1;
+        }
+    }
+
+    /** Sell the held units; false if the token is unknown, already finished or expired. */
+    public boolean commit(long token) {
+        Hold hold = finish(token);
+        if (hold == null) return false;
+        boolean sold = inventory.sellHeld(hold.product, hold.qty);
+        unreserve(hold); // after the sale, so the units never look free in between
+        return sold;
+    }
+
+    /**
+     * Commit several holds as one order: either every line is sold or none is. All holds are
+     * finished first, so none can expire midway. If any was already gone or a sale fails,
+     * the lines sold so far are put back with addStock. Every hold ends either way.
+     */
+    public boolean commitAll(long[] tokens) {
+        Hold[] taken = new Hold[tokens.length];
+        boolean ok = true;
+        for (int i = 0; i < tokens.length; i++) {
+            taken[i] = finish(tokens[i]);
+            if (taken[i] == null) ok = false;
+        }
+        int sold = 0;
+        if (ok) {
+            while (sold < taken.length && inventory.sellHeld(taken[sold].product, taken[sold].qty)) sold++;
+            ok = sold == taken.length;
+        }
+        if (!ok) {
+            for (int i = 0; i < sold; i++) inventory.addStock(taken[i].product, taken[i].qty);
+        }
+        for (Hold hold : taken) {
+            if (hold != null) unreserve(hold); // after sale or put-back, as in commit
+        }
+        return ok;
+    }
+
+    /** Give the held units back; false if the token is unknown, already finished or expired. */
+    public boolean release(long token) {
+        Hold hold = finish(token);
+        if (hold == null) return false;
+        unreserve(hold);
+        return true;
+    }
+
+    /** Units that can still be reserved or sold: quantity minus outstanding holds (lock-free). */
+    public int availableToSell(Product p) {
+        return Math.max(0, p.getQuantity() - reservedUnits(p));
+    }
+
+    /**
+     * Stock status computed on available-to-sell rather than raw quantity. Product's own
+     * getStockStatus() stays on quantity: Category totals and SearchIndex status buckets are
+     * kept current from quantity changes, and holds never pass through them.
+     */
+    public String stockStatus(Product p) {
+        return Product.stockStatusOf(availableToSell(p));
+    }
+
+    public int reservedUnits(Product p) {
+        AtomicInteger held = reserved.get(p);
+        return held == null ? 0 : Math.max(0, held.get()); // -1: retired
+    }
+
+    public int outstandingHolds() { return holds.size(); }
+    public long expiredHolds() { return expired.get(); }
+
+    /** Stops expiring holds and detaches from the inventory, whose sells then ignore the remaining holds. */
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+        inventory.detach(this);
+    }
+
+    private Hold finish(long token) {
+        Hold hold = holds.remove(token);
+        if (hold == null || !hold.state.compareAndSet(Hold.HELD, Hold.DONE)) return null;
+        return hold;
+    }
+
+    private void unreserve(Hold hold) {
+        unreserve(hold.product, reserved.get(hold.product), hold.qty); // live: this hold is still counted in it
+    }
+
+    private void unreserve(Product p, AtomicInteger held, int qty) {
+        if (held.addAndGet(-qty) == 0 && held.compareAndSet(0, -1)) reserved.remove(p, held);
+    }
+
+    /** Products with at least one outstanding hold (retired counters are removed). */
+    public int reservedProducts() { return reserved.size(); }
+
+    /** Advance the wheel one slot and expire the holds whose deadline has come. */
+    private void tick() {
+        long tick = ++currentTick;
+        ConcurrentLinkedQueue<Hold> slot = wheel[(int) (tick % wheel.length)];
+        int n = slot.size();
+        for (int i = 0; i < n; i++) {
+            Hold hold = slot.poll();
+            if (hold == null) break;
+            if (hold.state.get() != Hold.HELD) continue;      // committed/released already
+            if (hold.deadlineTick > tick) { slot.add(hold); continue; } // later lap of the wheel
+            if (holds.remove(hold.token, hold) && hold.state.compareAndSet(Hold.HELD, Hold.DONE)) {
+                unreserve(hold);
+                expired.incrementAndGet();
+            }
+        }
+    }
+}
@@ -18,4 +18,12 @@ public class BogoHalfPromotion extends Promotion {
         int singles = q % 2;
         return pairs * (price * 1.5) + singles * price;
     }
+
+    @Override
+    public long applyMinor(Product p, int qty) {
+        int q = Math.max(0, qty);
+        long price = p.getPriceMinor();
+        long pair = price + Money.divide(price, 2); // second unit at -50%, rounded once
+        return Money.times(pair, q / 2) + Money.times(price, q % 2);
+    }
 }
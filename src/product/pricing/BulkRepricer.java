@@ -0,0 +1,144 @@
+package product.pricing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import product.PriceBatch;
+import product.Product;
+
+/**
+ * Nightly repricing: new unit price = policy.apply(p, 1) for every applicable product.
+ * Phase 1 computes new prices in parallel (ForkJoin, one task per partition) into a
+ * side array without touching any Product, remembering the price each one was computed
+ * from. Phase 2 validates the whole batch first, so one bad result writes nothing. It
+ * then stages each price in one PriceBatch (Product.stagePrice against that remembered
+ * price: products repriced by someone else in between are skipped and counted as
+ * conflicts rather than overwritten) and publishes the batch, so readers see either none
+ * or all of the new prices. Each product then settles, firing its listeners, so indexes
+ * built on listeners (Catalog, SearchIndex) catch up product by product just after the
+ * switch. Products that cannot stage (ColumnarProductStore rows) count as conflicts.
+ */
+public class BulkRepricer {
+    /** Outcome of one run. */
+    public static final class Result {
+        public final int scanned;
+        public final int changed;
+        public final int unchanged;  // applicable, but the rule left the unit price as it was
+        public final int conflicts;  // price changed between staging and commit; left alone
+        public final boolean committed;
+        public final long computeNanos;
+        public final long commitNanos;
+        public final long[] partitionNanos; // compute time per partition
+
+        Result(int scanned, int changed, int unchanged, int conflicts, boolean committed,
+               long computeNanos, long commitNanos, long[] partitionNanos) {
+            this.scanned = scanned;
+            this.changed = changed;
+            this.unchanged = unchanged;
+            this.conflicts = conflicts;
+            this.committed = committed;
+            this.computeNanos = computeNanos;
+            this.commitNanos = commitNanos;
+            this.partitionNanos = partitionNanos;
+        }
+
+        /** Products scanned per second during the compute phase. */
+        public double throughputPerSecond() {
+            return computeNanos == 0 ? 0 : scanned * 1e9 / computeNanos;
+        }
+
+        @Override public String toString() {
+            return ("Result{scanned=%d, changed=%d, unchanged=%d, conflicts=%d, committed=%s, compute=%.2fms,"
+                    + " commit=%.2fms, partitions=%d, %.0f/s}")
+                .formatted(scanned, changed, unchanged, conflicts, committed, computeNanos / 1e6, commitNanos / 1e6,
+                           partitionNanos.length, throughputPerSecond());
+        }
+    }
+
+    private static final double UNCHANGED = -1.0; // staged marker: not applicable
+
+    private final ForkJoinPool pool;
+    private final int partitions;
+
+    public BulkRepricer() { this(ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors() * 4); }
+
+    public BulkRepricer(ForkJoinPool pool, int partitions) {
+        this.pool = pool;
+        this.partitions = Math.max(1, partitions);
+    }
+
+    /** Apply the first applicable policy (in list order) to each product, then commit (see class doc). */
+    public Result reprice(List<? extends Product> products, List<? extends PricePolicy> policies) {
+        Product[] items = products.toArray(new Product[0]);
+        PricePolicy[] rules = policies.toArray(new PricePolicy[0]);
+        double[] staged = new double[items.length];
+        double[] basis = new double[items.length]; // price each staged value was computed from
+        int parts = Math.min(partitions, Math.max(1, items.length));
+        long[] partitionNanos = new long[parts];
+
+        long t0 = System.nanoTime();
+        List<RecursiveAction> tasks = new ArrayList<>(parts);
+        for (int i = 0; i < parts; i++) {
+            int from = (int) ((long) items.length * i / parts);
+            int to = (int) ((long) items.length * (i + 1) / parts);
+            int slot = i;
+            tasks.add(new RecursiveAction() {
+                @Override protected void compute() {
+                    long start = System.nanoTime();
+                    stage(items, rules, staged, basis, from, to);
+                    partitionNanos[slot] = System.nanoTime() - start;
+                }
+            });
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override protected void compute() { invokeAll(tasks); }
+        });
+        long computeNanos = System.nanoTime() - t0;
+
+        long t1 = System.nanoTime();
+        int changed = 0, unchanged = 0, conflicts = 0;
+        boolean valid = true;
+        for (double next : staged) {
+            if (next == UNCHANGED) continue;
+            if (next < 0.0 || next > 1_000_000.0 || Double.isNaN(next)) { valid = false; break; }
+        }
+        if (valid) {
+            synchronized (this) { // one commit at a time
+                PriceBatch batch = new PriceBatch();
+                try {
+                    for (int i = 0; i < items.length; i++) {
+                        double next = staged[i];
+                        if (next == UNCHANGED) continue;
+                        if (next == basis[i]) unchanged++; // e.g. BOGO at qty 1: nothing to write
+                        else if (items[i].stagePrice(basis[i], next, batch)) changed++;
+                        else conflicts++;
+                    }
+                } catch (RuntimeException e) { // a listener of an earlier change threw while staging
+                    batch.abandon();
+                    throw e;
+                }
+                batch.publish();
+                for (int i = 0; i < items.length; i++) {
+                    if (staged[i] != UNCHANGED && staged[i] != basis[i]) items[i].values(); // settle: listeners run now
+                }
+            }
+        }
+        return new Result(items.length, changed, unchanged, conflicts, valid, computeNanos, System.nanoTime() - t1,
+                          partitionNanos);
+    }
+
+    private static void stage(Product[] items, PricePolicy[] rules, double[] staged, double[] basis, int from, int to) {
+        for (int i = from; i < to; i++) {
+            Product p = items[i];
+            staged[i] = UNCHANGED;
+            for (PricePolicy rule : rules) {
+                if (rule.applicableTo(p)) {
+                    basis[i] = p.getPrice(); // read first: if it moves, the commit CAS fails
+                    staged[i] = rule.apply(p, 1);
+                    break;
+                }
+            }
+        }
+    }
+}
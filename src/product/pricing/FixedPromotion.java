@@ -3,13 +3,19 @@ import product.Product;
 
 public class FixedPromotion extends Promotion {
     private final double amount; // >=0
+    private final long amountMinor;
 
     public FixedPromotion(String code, double amount) {
         super(code);
         this.amount = Math.max(0, amount);
+        this.amountMinor = Money.ofMajor(this.amount);
     }
 
     @Override protected double discountedUnitPrice(Product p, int qty) {
         return Math.max(0.0, p.getPrice() - amount);
     }
+
+    @Override protected long discountedUnitMinor(Product p, int qty) {
+        return Math.max(0, p.getPriceMinor() - amountMinor);
+    }
 }
@@ -0,0 +1,158 @@
+package product.pricing;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.function.LongSupplier;
+import product.Product;
+
+/**
+ * Fixed-point money in minor units (1 KZT = 100 tiyn) held in a plain long.
+ * Static helpers only, so exact amounts flow through the pipeline without allocating.
+ * Every inexact step rounds with an explicit mode, or with the calling thread's current one:
+ * HALF_UP unless the step runs inside withRounding(mode, ...) (e.g. a plan's withRounding).
+ */
+public final class Money {
+    public static final String CURRENCY = Product.DEFAULT_CURRENCY;
+    public static final long SCALE = 100; // minor units per KZT
+
+    /** exactMinor's result for amounts that are not a whole number of minor units. */
+    public static final long INEXACT = Long.MIN_VALUE;
+    private static final double SNAP = 1e-6; // minor units; far below any real fraction of a tiyn
+
+    public static final RoundingMode DEFAULT_ROUNDING = RoundingMode.HALF_UP;
+    private static final ThreadLocal<RoundingMode[]> CONTEXT = ThreadLocal.withInitial(() -> new RoundingMode[1]);
+    private static volatile boolean scoped; // set by the first withRounding; until then no thread-local lookups
+
+    private Money() {}
+
+    /** The calling thread's rounding: the innermost withRounding(...) mode, else DEFAULT_ROUNDING. */
+    public static RoundingMode rounding() {
+        if (!scoped) return DEFAULT_ROUNDING;
+        RoundingMode mode = CONTEXT.get()[0];
+        return mode == null ? DEFAULT_ROUNDING : mode;
+    }
+
+    /** Run body with mode as this thread's rounding, restoring the outer one after; UNNECESSARY is rejected. */
+    public static long withRounding(RoundingMode mode, LongSupplier body) {
+        checkRounding(mode);
+        scoped = true;
+        RoundingMode[] context = CONTEXT.get();
+        RoundingMode outer = context[0];
+        context[0] = mode;
+        try {
+            return body.getAsLong();
+        } finally {
+            context[0] = outer;
+        }
+    }
+
+    /** mode itself, if it can round a money step (not null, not UNNECESSARY). */
+    public static RoundingMode checkRounding(RoundingMode mode) {
+        if (mode == null || mode == RoundingMode.UNNECESSARY) {
+            throw new IllegalArgumentException("unsupported rounding: " + mode);
+        }
+        return mode;
+    }
+
+    /**
+     * Convert a major-unit double (e.g. Product price) to minor units. Results within binary
+     * noise of a whole minor unit (19.99 * 100 = 1998.9999999999998) snap to it, so exact
+     * prices survive every mode; near-ties snap to the exact half. Only genuinely fractional
+     * amounts are rounded by the mode.
+     */
+    public static long ofMajor(double amount) {
+        return ofMajor(amount, null);
+    }
+
+    /** ofMajor(amount) with an explicit mode (null = the thread's current rounding()). */
+    public static long ofMajor(double amount, RoundingMode mode) {
+        double scaled = amount * SCALE;
+        double nearest = Math.rint(scaled);
+        double tolerance = tolerance(scaled);
+        if (Math.abs(scaled - nearest) <= tolerance) return (long) nearest;
+        double half = Math.floor(scaled) + 0.5; // 1.005 * 100 = 100.49999999999999 is a tie too
+        if (Math.abs(scaled - half) <= tolerance) scaled = half;
+        switch (mode != null ? mode : rounding()) {
+            case DOWN: return (long) scaled;
+            case UP: return (long) (scaled < 0 ? Math.floor(scaled) : Math.ceil(scaled));
+            case FLOOR: return (long) Math.floor(scaled);
+            case CEILING: return (long) Math.ceil(scaled);
+            case HALF_EVEN: return (long) Math.rint(scaled);
+            // Math.round breaks ties towards +infinity; mirror it for the half modes' sign
+            case HALF_DOWN: return scaled < 0 ? Math.round(scaled) : -Math.round(-scaled);
+            default: return scaled < 0 ? -Math.round(-scaled) : Math.round(scaled); // HALF_UP
+        }
+    }
+
+    /** amount in minor units if it is whole up to binary noise (the same in every mode), else INEXACT. */
+    public static long exactMinor(double amount) {
+        double scaled = amount * SCALE;
+        double nearest = Math.rint(scaled);
+        return Math.abs(scaled - nearest) <= tolerance(scaled) ? (long) nearest : INEXACT;
+    }
+
+    private static double tolerance(double scaled) { return Math.max(SNAP, 4 * Math.ulp(scaled)); }
+
+    public static double toMajor(long minor) { return minor / (double) SCALE; }
+
+    /** unit × qty, failing loudly instead of overflowing. */
+    public static long times(long unit, int qty) { return Math.multiplyExact(unit, (long) qty); }
+
+    /** percent% of amount, rounded once (percent is resolved to basis points, e.g. 12.5 -> 1250). */
+    public static long percentOf(long amount, double percent) {
+        return percentOfBasisPoints(amount, basisPoints(percent));
+    }
+
+    /** e.g. 12.5 -> 1250; resolve once for rates that are applied many times. */
+    public static long basisPoints(double percent) { return Math.round(percent * 100); }
+
+    /** bp/10000 of amount, rounded once. */
+    public static long percentOfBasisPoints(long amount, long bp) {
+        return divide(Math.multiplyExact(amount, bp), 10_000);
+    }
+
+    /** num / den (den > 0) rounded with the thread's current mode, using long arithmetic only. */
+    public static long divide(long num, long den) {
+        return divide(num, den, null);
+    }
+
+    /** divide(num, den) with an explicit mode (null = the thread's current rounding()). */
+    public static long divide(long num, long den, RoundingMode mode) {
+        long q = num / den;
+        long r = num % den;
+        if (r == 0) return q;
+        int sign = num < 0 ? -1 : 1;
+        long twice = Math.abs(r) * 2;
+        boolean awayFromZero;
+        switch (mode != null ? mode : rounding()) {
+            case DOWN: awayFromZero = false; break;
+            case UP: awayFromZero = true; break;
+            case FLOOR: awayFromZero = sign < 0; break;
+            case CEILING: awayFromZero = sign > 0; break;
+            case HALF_DOWN: awayFromZero = twice > den; break;
+            case HALF_EVEN: awayFromZero = twice > den || (twice == den && (q & 1) != 0); break;
+            default: awayFromZero = twice >= den; // HALF_UP
+        }
+        return awayFromZero ? q + sign : q;
+    }
+
+    /** a × b / den (den > 0) rounded once with the thread's current mode, exact even when a × b overflows a long. */
+    public static long mulDiv(long a, long b, long den) {
+        return mulDiv(a, b, den, null);
+    }
+
+    /** mulDiv(a, b, den) with an explicit mode (null = the thread's current rounding()). */
+    public static long mulDiv(long a, long b, long den, RoundingMode mode) {
+        long high = Math.multiplyHigh(a, b), low = a * b;
+        if (high == (low >> 63)) return divide(low, den, mode); // product fits in a long
+        return new BigDecimal(BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)))
+            .divide(BigDecimal.valueOf(den), 0, mode != null ? mode : rounding()).longValueExact();
+    }
+
+    /** e.g. 12345 -> "123.45 KZT" */
+    public static String format(long minor) {
+        long abs = Math.abs(minor);
+        return (minor < 0 ? "-" : "") + abs / SCALE + "." + String.format("%02d", abs % SCALE) + " " + CURRENCY;
+    }
+}
@@ -3,15 +3,22 @@ import product.Product;
 
 public class PercentagePromotion extends Promotion {
     private final double percent; // 0..90
+    private final long bp;
 
     public PercentagePromotion(String code, double percent) {
         super(code);
         this.percent = Math.max(0, Math.min(90, percent));
+        this.bp = Money.basisPoints(this.percent);
     }
 
     @Override protected double discountedUnitPrice(Product p, int qty) {
         return p.getPrice() * (1 - percent / 100.0);
     }
 
+    @Override protected long discountedUnitMinor(Product p, int qty) {
+        long price = p.getPriceMinor();
+        return price - Money.percentOfBasisPoints(price, bp);
+    }
+
     @Override public String name() { return "Percent-" + percent + "%(" + code() + ")"; }
 }
@@ -15,6 +15,17 @@ public interface PricePolicy {
      */
     double apply(Product p, int qty);
     
+    /**
+     * Same as apply(...) but in exact minor units (see Money).
+     * Default converts the double result; policies override to compute exactly.
+     * @param p the product
+     * @param qty the quantity
+     * @return the total price in minor units
+     */
+    default long applyMinor(Product p, int qty) {
+        return Money.ofMajor(apply(p, qty));
+    }
+    
     /**
      * Get a human-readable name for this policy.
      * @return the policy name
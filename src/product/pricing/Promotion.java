@@ -26,9 +26,22 @@ public abstract class Promotion implements PricePolicy {
         return Math.max(0.0, unit) * q;
     }
 
+    /** Same template in minor units: exact unit price × qty, no double rounding. */
+    @Override
+    public long applyMinor(Product p, int qty) {
+        int q = Math.max(0, qty);
+        long unit = discountedUnitMinor(p, q);
+        return Money.times(Math.max(0, unit), q);
+    }
+
     /** Hook for subclasses: return *unit* price after discount for given qty/product. */
     protected abstract double discountedUnitPrice(Product p, int qty);
 
+    /** Minor-unit hook; defaults to the double hook, subclasses override for exact math. */
+    protected long discountedUnitMinor(Product p, int qty) {
+        return Money.ofMajor(discountedUnitPrice(p, qty));
+    }
+
     /** Promotions are applicable to any product by default. */
     @Override public boolean applicableTo(Product p) { return true; }
 }
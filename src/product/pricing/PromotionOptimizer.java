@@ -0,0 +1,472 @@
+package product.pricing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+import product.Product;
+
+/**
+ * Picks the cheapest valid set of promotions for a whole order.
+ *
+ * Each candidate belongs to an exclusion group: at most one member of a group may be used
+ * in the order (a null group means the candidate excludes nothing). Active candidates then
+ * price every line they apply to: a line pays the cheapest non-stackable total (or list
+ * price), scaled by the discount ratio of every stackable candidate that applies on top.
+ *
+ * Search is depth-first branch and bound over the groups with more than one member, after
+ * dropping members that a rival beats on every line. The bound lets each line take the best
+ * member of every undecided group, which can only be cheaper than any real choice, so a
+ * branch whose bound is not below the best total found so far is cut. A greedy pass seeds
+ * the incumbent; a node budget caps the work on pathological inputs (see Plan.exhaustive).
+ */
+public class PromotionOptimizer {
+    /** A promotion offered to the optimizer. */
+    public static final class Candidate {
+        public final PricePolicy policy;
+        public final String group;      // exclusion group; null = independent
+        public final boolean stackable; // applies on top of the line's base promotion
+
+        public Candidate(PricePolicy policy, String group, boolean stackable) {
+            if (policy == null) throw new IllegalArgumentException("policy");
+            this.policy = policy;
+            this.group = group;
+            this.stackable = stackable;
+        }
+    }
+
+    /** Optimal (or best-within-budget) assignment for one order. */
+    public static final class Plan {
+        private final List<PricePolicy> chosen;
+        private final double[] lineTotals;
+        private final double listTotal;
+        private final double total;
+        private final Supplier<List<String>> explainer;
+        private List<String> explanation; // built on first request
+        private final long savingsMinor;
+        private final long nodes;
+        private final boolean exhaustive;
+
+        Plan(List<PricePolicy> chosen, double[] lineTotals, double listTotal, double total,
+             Supplier<List<String>> explainer, long savingsMinor, long nodes, boolean exhaustive) {
+            this.chosen = chosen;
+            this.lineTotals = lineTotals;
+            this.listTotal = listTotal;
+            this.total = total;
+            this.explainer = explainer;
+            this.savingsMinor = savingsMinor;
+            this.nodes = nodes;
+            this.exhaustive = exhaustive;
+        }
+
+        /** Promotions active in the order (independent ones included). */
+        public List<PricePolicy> chosen() { return chosen; }
+        public double lineTotal(int line) { return lineTotals[line]; }
+        public double listTotal() { return listTotal; }
+        public double total() { return total; }
+        public double savings() { return listTotal - total; }
+        /**
+         * savings() in minor units, repriced through each chosen policy's applyMinor: a line's
+         * base promotion gives its total and every stackable one scales it by its own
+         * minor-unit total over the list total (see Money.mulDiv), so no amount goes
+         * through double. Priced during optimize, against the list prices the search read.
+         */
+        public long savingsMinor() { return savingsMinor; }
+        /** Why each group and line ended up as it did, plus search statistics. */
+        public synchronized List<String> explanation() {
+            if (explanation == null) explanation = explainer.get();
+            return explanation;
+        }
+        public long nodes() { return nodes; }
+        /** False when the node budget ran out; the plan is then the best one found. */
+        public boolean exhaustive() { return exhaustive; }
+
+        @Override public String toString() {
+            return "Plan{total=%.2f, saves=%.2f, promos=%d, nodes=%d%s}"
+                .formatted(total, savings(), chosen.size(), nodes, exhaustive ? "" : ", budget hit");
+        }
+    }
+
+    private final Candidate[] candidates;
+    private final long nodeBudget;
+
+    public PromotionOptimizer(List<Candidate> candidates, long nodeBudget) {
+        this.candidates = candidates.toArray(new Candidate[0]);
+        this.nodeBudget = Math.max(1, nodeBudget);
+    }
+
+    public Plan optimize(Product[] products, int[] quantities, int lines) {
+        return optimize(lines, i -> products[i], i -> quantities[i]);
+    }
+
+    public Plan optimize(int lines, IntFunction<Product> products, IntUnaryOperator quantities) {
+        return new Search(lines, products, quantities).run();
+    }
+
+    /** One optimization run; all per-order state lives here. */
+    private final class Search {
+        static final double EPS = 1e-6; // KZT; totals are sums of ~100 doubles
+
+        final int n;
+        final Product[] product;
+        final int[] qty;
+        final double[] list;
+        final long[] listMinor;  // list in minor units, from the same price snapshot
+        final double[][] value;  // [candidate][line]: line total, or total/list ratio if stackable
+        final int[][] touch;     // [candidate]: lines where the candidate lowers anything
+        final int[] fixed;       // candidates with no rival: always active
+        final int[][] groups;    // decision groups, most promising first
+        final String[] groupNames;
+        final int dominated;     // members dropped because a rival is never worse
+        final double[][] sufMin;    // [depth][line] cheapest base over groups depth..end
+        final double[][] sufFactor; // [depth][line] best stackable ratio per group, depth..end
+        final double[][] baseAt;
+        final double[][] factorAt;
+        final int[] choice;
+        final double[][] floorAt;    // [depth][line] scratch: base capped by the suffix minimum
+        final double[][] weightAt;   // [depth][line] scratch: factor times suffix factor
+        final double[][] childBound; // [depth][member] scratch for search
+        final int[][] childOrder;
+        int[] bestChoice;
+        double best = Double.POSITIVE_INFINITY;
+        long nodes;
+        long pruned;
+        boolean outOfBudget;
+
+        Search(int lines, IntFunction<Product> products, IntUnaryOperator quantities) {
+            n = lines;
+            product = new Product[n];
+            qty = new int[n];
+            list = new double[n];
+            listMinor = new long[n];
+            for (int l = 0; l < n; l++) {
+                product[l] = products.apply(l);
+                qty[l] = Math.max(0, quantities.applyAsInt(l));
+                Product.Values v = product[l].values(); // price and minor price from one read
+                list[l] = v.price * qty[l];
+                listMinor[l] = Money.times(v.priceMinor(), qty[l]);
+            }
+            int m = candidates.length;
+            value = new double[m][];
+            touch = new int[m][];
+            double[] saving = new double[m];
+            int[] hits = new int[n];
+            for (int c = 0; c < m; c++) {
+                Candidate cand = candidates[c];
+                double[] row = new double[n];
+                int k = 0;
+                for (int l = 0; l < n; l++) {
+                    boolean applies = qty[l] > 0 && cand.policy.applicableTo(product[l]);
+                    double total = applies ? cand.policy.apply(product[l], qty[l]) : Double.POSITIVE_INFINITY;
+                    if (cand.stackable) {
+                        row[l] = applies && list[l] > 0 ? Math.min(1.0, total / list[l]) : 1.0;
+                        if (row[l] < 1.0) hits[k++] = l;
+                        saving[c] += list[l] * (1 - row[l]);
+                    } else {
+                        row[l] = total;
+                        if (total < list[l]) {
+                            hits[k++] = l;
+                            saving[c] += list[l] - total;
+                        }
+                    }
+                }
+                value[c] = row;
+                touch[c] = Arrays.copyOf(hits, k);
+            }
+
+            Map<String, List<Integer>> byGroup = new LinkedHashMap<>();
+            List<Integer> alone = new ArrayList<>();
+            for (int c = 0; c < m; c++) {
+                if (candidates[c].group == null) alone.add(c);
+                else byGroup.computeIfAbsent(candidates[c].group, k -> new ArrayList<>()).add(c);
+            }
+            List<int[]> decisions = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            int dropped = 0;
+            for (Map.Entry<String, List<Integer>> e : byGroup.entrySet()) {
+                List<Integer> members = e.getValue();
+                int before = members.size();
+                members.removeIf(b -> isDominated(b, members));
+                dropped += before - members.size();
+                if (members.size() == 1) {
+                    alone.add(members.get(0));
+                    continue;
+                }
+                members.sort((a, b) -> Double.compare(saving[b], saving[a])); // try the biggest saver first
+                decisions.add(members.stream().mapToInt(Integer::intValue).toArray());
+                names.add(e.getKey());
+            }
+            dominated = dropped;
+            fixed = alone.stream().mapToInt(Integer::intValue).toArray();
+            // The bound counts every member of an undecided group at once, so decide first the
+            // groups where that overstates most (all members' savings minus the best one's).
+            double[] slack = new double[decisions.size()];
+            Integer[] order = new Integer[decisions.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+                int[] members = decisions.get(i);
+                for (int k = 1; k < members.length; k++) slack[i] += saving[members[k]];
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(slack[b], slack[a]));
+            groups = new int[order.length][];
+            groupNames = new String[order.length];
+            for (int i = 0; i < order.length; i++) {
+                groups[i] = decisions.get(order[i]);
+                groupNames[i] = names.get(order[i]);
+            }
+
+            int depth = groups.length;
+            sufMin = new double[depth + 1][n];
+            sufFactor = new double[depth + 1][n];
+            Arrays.fill(sufMin[depth], Double.POSITIVE_INFINITY);
+            Arrays.fill(sufFactor[depth], 1.0);
+            double[] groupFactor = new double[n];
+            for (int d = depth - 1; d >= 0; d--) {
+                System.arraycopy(sufMin[d + 1], 0, sufMin[d], 0, n);
+                System.arraycopy(sufFactor[d + 1], 0, sufFactor[d], 0, n);
+                Arrays.fill(groupFactor, 1.0); // one member per group: its best ratio, not all of them
+                for (int c : groups[d]) {
+                    double[] v = value[c];
+                    if (candidates[c].stackable) {
+                        for (int l : touch[c]) groupFactor[l] = Math.min(groupFactor[l], v[l]);
+                    } else {
+                        for (int l : touch[c]) sufMin[d][l] = Math.min(sufMin[d][l], v[l]);
+                    }
+                }
+                for (int l = 0; l < n; l++) sufFactor[d][l] *= groupFactor[l];
+            }
+            baseAt = new double[depth + 1][n];
+            factorAt = new double[depth + 1][n];
+            System.arraycopy(list, 0, baseAt[0], 0, n);
+            Arrays.fill(factorAt[0], 1.0);
+            for (int c : fixed) activate(c, baseAt[0], factorAt[0]);
+            choice = new int[depth];
+            floorAt = new double[depth][n];
+            weightAt = new double[depth][n];
+            childBound = new double[depth][];
+            childOrder = new int[depth][];
+            for (int d = 0; d < depth; d++) {
+                childBound[d] = new double[groups[d].length];
+                childOrder[d] = new int[groups[d].length];
+            }
+        }
+
+        /** True if another member of the same kind is never worse on any line (ties: lower index wins). */
+        boolean isDominated(int b, List<Integer> members) {
+            for (int a : members) {
+                if (a == b || candidates[a].stackable != candidates[b].stackable) continue;
+                double[] va = value[a], vb = value[b];
+                boolean noWorse = true, equal = true;
+                for (int l = 0; l < n && noWorse; l++) {
+                    if (va[l] > vb[l]) noWorse = false;
+                    else if (va[l] < vb[l]) equal = false;
+                }
+                if (noWorse && (!equal || a < b)) return true;
+            }
+            return false;
+        }
+
+        void activate(int c, double[] base, double[] factor) {
+            double[] v = value[c];
+            if (candidates[c].stackable) {
+                for (int l : touch[c]) factor[l] *= v[l];
+            } else {
+                for (int l : touch[c]) if (v[l] < base[l]) base[l] = v[l];
+            }
+        }
+
+        double cost(int depth) {
+            double[] base = baseAt[depth], factor = factorAt[depth];
+            double sum = 0;
+            for (int l = 0; l < n; l++) sum += base[l] * factor[l];
+            return sum;
+        }
+
+        /** Load baseAt/factorAt[depth + 1] from depth with member c of group depth active. */
+        void descend(int depth, int c) {
+            System.arraycopy(baseAt[depth], 0, baseAt[depth + 1], 0, n);
+            System.arraycopy(factorAt[depth], 0, factorAt[depth + 1], 0, n);
+            activate(c, baseAt[depth + 1], factorAt[depth + 1]);
+        }
+
+        Plan run() {
+            greedy();
+            if (groups.length > 0) search(0);
+            dropIdle();
+            return plan();
+        }
+
+        /** Seed: per group in order, keep whichever member is cheapest given earlier picks. */
+        void greedy() {
+            for (int d = 0; d < groups.length; d++) {
+                int pick = -1;
+                double bestHere = Double.POSITIVE_INFINITY;
+                for (int c : groups[d]) {
+                    descend(d, c);
+                    double cost = cost(d + 1);
+                    if (cost < bestHere) { bestHere = cost; pick = c; }
+                }
+                choice[d] = pick;
+                descend(d, pick);
+            }
+            best = cost(groups.length);
+            bestChoice = choice.clone();
+        }
+
+        /**
+         * Activating a promotion never raises a line total, so "no member" is never better
+         * than some member: every group branches only over its members. Each child's bound
+         * is the node's bound plus the change on the lines that member touches; children are
+         * visited cheapest bound first and cut as soon as a bound reaches the best total.
+         */
+        void search(int depth) {
+            if (++nodes > nodeBudget) {
+                outOfBudget = true;
+                return;
+            }
+            double[] base = baseAt[depth], factor = factorAt[depth];
+            double[] min = sufMin[depth + 1], more = sufFactor[depth + 1];
+            double[] floor = floorAt[depth], weight = weightAt[depth];
+            double rest = 0; // bound at depth + 1 if this group's pick changed nothing
+            for (int l = 0; l < n; l++) {
+                floor[l] = Math.min(base[l], min[l]);
+                weight[l] = factor[l] * more[l];
+                rest += floor[l] * weight[l];
+            }
+            int[] members = groups[depth];
+            double[] bounds = childBound[depth];
+            int[] order = childOrder[depth];
+            for (int i = 0; i < members.length; i++) {
+                int c = members[i];
+                double[] v = value[c];
+                double delta = 0;
+                if (candidates[c].stackable) {
+                    for (int l : touch[c]) delta += floor[l] * weight[l] * (v[l] - 1);
+                } else {
+                    for (int l : touch[c]) delta += Math.min(v[l] - floor[l], 0) * weight[l];
+                }
+                bounds[i] = rest + delta;
+                int j = i; // insertion sort: groups are small
+                while (j > 0 && bounds[order[j - 1]] > bounds[i]) { order[j] = order[j - 1]; j--; }
+                order[j] = i;
+            }
+            boolean last = depth + 1 == groups.length;
+            for (int k = 0; k < members.length; k++) {
+                int i = order[k];
+                if (bounds[i] >= best - EPS) {
+                    pruned += members.length - k;
+                    return;
+                }
+                choice[depth] = members[i];
+                descend(depth, members[i]);
+                if (last) {
+                    double cost = cost(depth + 1);
+                    if (cost < best - EPS) {
+                        best = cost;
+                        bestChoice = choice.clone();
+                    }
+                    continue;
+                }
+                search(depth + 1);
+                if (outOfBudget) return;
+            }
+        }
+
+        /** Drop picks that save nothing in the final plan, so chosen() lists only useful ones. */
+        void dropIdle() {
+            for (int d = 0; d < groups.length; d++) {
+                int c = bestChoice[d];
+                bestChoice[d] = -1;
+                if (costOf(bestChoice) > best + EPS) bestChoice[d] = c;
+            }
+        }
+
+        double costOf(int[] picks) {
+            double[] base = baseAt[0].clone(), factor = factorAt[0].clone();
+            for (int c : picks) if (c >= 0) activate(c, base, factor);
+            double sum = 0;
+            for (int l = 0; l < n; l++) sum += base[l] * factor[l];
+            return sum;
+        }
+
+        Plan plan() {
+            List<PricePolicy> chosen = new ArrayList<>();
+            List<Integer> active = new ArrayList<>();
+            for (int c : fixed) active.add(c);
+            for (int c : bestChoice) if (c >= 0) active.add(c);
+            for (int c : active) chosen.add(candidates[c].policy);
+            // replay the winning choice to price each line and remember who set its base
+            double[] base = list.clone();
+            double[] factor = new double[n];
+            Arrays.fill(factor, 1.0);
+            int[] baseBy = new int[n];
+            Arrays.fill(baseBy, -1);
+            for (int c : active) {
+                double[] v = value[c];
+                for (int l : touch[c]) {
+                    if (candidates[c].stackable) {
+                        factor[l] *= v[l];
+                    } else if (v[l] < base[l]) {
+                        base[l] = v[l];
+                        baseBy[l] = c;
+                    }
+                }
+            }
+            double[] lineTotals = new double[n];
+            double total = 0, listTotal = 0;
+            for (int l = 0; l < n; l++) {
+                lineTotals[l] = base[l] * factor[l];
+                total += lineTotals[l];
+                listTotal += list[l];
+            }
+            return new Plan(Collections.unmodifiableList(chosen), lineTotals, listTotal, total,
+                            () -> explain(active, lineTotals, baseBy), savingsMinor(active, baseBy),
+                            nodes, !outOfBudget);
+        }
+
+        long savingsMinor(List<Integer> active, int[] baseBy) {
+            long saved = 0;
+            for (int l = 0; l < n; l++) {
+                long list = listMinor[l];
+                long line = baseBy[l] < 0 ? list
+                    : Math.min(list, candidates[baseBy[l]].policy.applyMinor(product[l], qty[l]));
+                for (int c : active) {
+                    if (!candidates[c].stackable || value[c][l] >= 1.0 || list <= 0) continue;
+                    long scaled = Math.min(list, candidates[c].policy.applyMinor(product[l], qty[l]));
+                    line = Money.mulDiv(line, scaled, list);
+                }
+                saved = Math.addExact(saved, list - line);
+            }
+            return saved;
+        }
+
+        /** The trail is only formatted if someone asks for it; formatting dwarfs the search. */
+        List<String> explain(List<Integer> active, double[] lineTotals, int[] baseBy) {
+            List<String> why = new ArrayList<>();
+            for (int d = 0; d < groups.length; d++) {
+                int c = bestChoice[d];
+                why.add("group '" + groupNames[d] + "': "
+                    + (c < 0 ? "none" : candidates[c].policy.name()) + " of " + groups[d].length);
+            }
+            for (int l = 0; l < n; l++) {
+                if (lineTotals[l] >= list[l]) continue;
+                StringBuilder sb = new StringBuilder("line ").append(l).append(' ')
+                    .append(product[l].getName()).append(" x").append(qty[l])
+                    .append(": %.2f -> %.2f via ".formatted(list[l], lineTotals[l]))
+                    .append(baseBy[l] < 0 ? "list price" : candidates[baseBy[l]].policy.name());
+                for (int c : active) {
+                    if (candidates[c].stackable && value[c][l] < 1.0) sb.append(" + ").append(candidates[c].policy.name());
+                }
+                why.add(sb.toString());
+            }
+            why.add("searched %d nodes over %d groups, pruned %d, %d dominated%s"
+                .formatted(nodes, groups.length, pruned, dominated, outOfBudget ? ", node budget hit" : ", exhaustive"));
+            return Collections.unmodifiableList(why);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package product.pricing;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import product.Product;
+
+/**
+ * Live promotions indexed by scope, so finding the best promotion for a line only
+ * looks at policies that can match it instead of asking every policy.
+ * Each policy is filed under its most selective key (id prefix, then category id,
+ * then product type, else global). Reads use an immutable snapshot (lock-free) and
+ * allocate nothing. register/remove copy the map of the touched scope (buckets of other
+ * keys are shared, not copied) and swap the snapshot; a prefix change also rebuilds the
+ * small prefix table. Writes are rare, so they pay instead of lookups.
+ */
+public class PromotionRegistry {
+    /** A policy plus the scope it was registered for (null = any). */
+    private static final class Entry {
+        final PricePolicy policy;
+        final String categoryId;
+        final Class<? extends Product> type;
+        final String idPrefix;
+
+        Entry(PricePolicy policy, String categoryId, Class<? extends Product> type, String idPrefix) {
+            this.policy = policy;
+            this.categoryId = categoryId;
+            this.type = type;
+            this.idPrefix = idPrefix;
+        }
+
+        boolean matches(Product p) {
+            if (type != null && !type.isInstance(p)) return false;
+            if (categoryId != null && (p.getCategory() == null || !categoryId.equals(p.getCategory().getCategoryId()))) return false;
+            if (idPrefix != null && !p.getId().startsWith(idPrefix)) return false;
+            return true;
+        }
+    }
+
+    /** Immutable index; replaced wholesale on every change. */
+    private static final class Snapshot {
+        final Entry[] global;
+        final Map<Class<?>, Entry[]> byType;
+        final Map<String, Entry[]> byCategory;
+        final Map<String, Entry[]> byPrefix;
+        final int[] prefixLengths;     // distinct prefix lengths, ascending
+        final String[] prefixKeys;     // open addressing by String.hashCode, so a lookup can
+        final Entry[][] prefixBuckets; // hash id[0, len) incrementally instead of substring
+        final int size;
+
+        Snapshot(Entry[] global, Map<Class<?>, Entry[]> byType, Map<String, Entry[]> byCategory,
+                 Map<String, Entry[]> byPrefix, int size, Snapshot previous) {
+            this.global = global;
+            this.byType = byType;
+            this.byCategory = byCategory;
+            this.byPrefix = byPrefix;
+            this.size = size;
+            if (previous != null && previous.byPrefix == byPrefix) { // prefixes untouched: share the table
+                this.prefixLengths = previous.prefixLengths;
+                this.prefixKeys = previous.prefixKeys;
+                this.prefixBuckets = previous.prefixBuckets;
+                return;
+            }
+            this.prefixLengths = byPrefix.keySet().stream().mapToInt(String::length).distinct().sorted().toArray();
+            int capacity = Integer.highestOneBit(Math.max(1, byPrefix.size()) * 2) << 1;
+            this.prefixKeys = new String[capacity];
+            this.prefixBuckets = new Entry[capacity][];
+            for (Map.Entry<String, Entry[]> e : byPrefix.entrySet()) {
+                int slot = slot(e.getKey().hashCode(), capacity);
+                while (prefixKeys[slot] != null) slot = (slot + 1) & (capacity - 1);
+                prefixKeys[slot] = e.getKey();
+                prefixBuckets[slot] = e.getValue();
+            }
+        }
+
+        /** Bucket for id[0, len) whose String.hashCode is hash, or null. */
+        Entry[] prefixBucket(String id, int len, int hash) {
+            int mask = prefixKeys.length - 1;
+            for (int slot = slot(hash, prefixKeys.length); prefixKeys[slot] != null; slot = (slot + 1) & mask) {
+                String key = prefixKeys[slot];
+                if (key.length() == len && id.startsWith(key)) return prefixBuckets[slot];
+            }
+            return null;
+        }
+
+        private static int slot(int hash, int capacity) { return (hash ^ (hash >>> 16)) & (capacity - 1); }
+    }
+
+    private static final Entry[] NONE = new Entry[0];
+
+    private volatile Snapshot snapshot = new Snapshot(NONE, Map.of(), Map.of(), Map.of(), 0, null);
+
+    /** Register for every product. */
+    public void register(PricePolicy policy) { register(policy, null, null, null); }
+
+    /**
+     * Register with a scope; null parts mean "any". The policy's own applicableTo(...)
+     * is still checked at lookup time.
+     */
+    public synchronized void register(PricePolicy policy, String categoryId,
+                                      Class<? extends Product> type, String idPrefix) {
+        if (policy == null) return;
+        Entry e = new Entry(policy, categoryId, type, (idPrefix == null || idPrefix.isEmpty()) ? null : idPrefix);
+        Snapshot s = snapshot;
+        if (e.idPrefix != null) {
+            snapshot = new Snapshot(s.global, s.byType, s.byCategory, with(s.byPrefix, e.idPrefix, e), s.size + 1, s);
+        } else if (e.categoryId != null) {
+            snapshot = new Snapshot(s.global, s.byType, with(s.byCategory, e.categoryId, e), s.byPrefix, s.size + 1, s);
+        } else if (e.type != null) {
+            snapshot = new Snapshot(s.global, with(s.byType, e.type, e), s.byCategory, s.byPrefix, s.size + 1, s);
+        } else {
+            snapshot = new Snapshot(append(s.global, e), s.byType, s.byCategory, s.byPrefix, s.size + 1, s);
+        }
+    }
+
+    /** Remove every registration of this policy; returns how many were removed. */
+    public synchronized int remove(PricePolicy policy) {
+        Snapshot s = snapshot;
+        int[] removed = new int[1];
+        Entry[] global = without(s.global, policy, removed);
+        Map<Class<?>, Entry[]> byType = without(s.byType, policy, removed);
+        Map<String, Entry[]> byCategory = without(s.byCategory, policy, removed);
+        Map<String, Entry[]> byPrefix = without(s.byPrefix, policy, removed);
+        if (removed[0] > 0) snapshot = new Snapshot(global, byType, byCategory, byPrefix, s.size - removed[0], s);
+        return removed[0];
+    }
+
+    public int size() { return snapshot.size; }
+
+    /** Cheapest eligible policy for this line (lowest apply), or null if none is eligible. */
+    public PricePolicy best(Product p, int qty) {
+        if (p == null) return null;
+        Snapshot s = snapshot;
+        PricePolicy best = null;
+        double bestPrice = Double.POSITIVE_INFINITY;
+        // Walk the scopes in turn (global, each class up the hierarchy, category, each id
+        // prefix), keeping the winner in locals so a lookup allocates nothing.
+        Class<?> type = p.getClass();
+        String categoryId = p.getCategory() == null ? null : p.getCategory().getCategoryId();
+        String id = p.getId();
+        int prefix = 0, hashedTo = 0, hash = 0;
+        Entry[] bucket = s.global;
+        while (true) {
+            if (bucket != null) {
+                for (Entry e : bucket) {
+                    if (!e.matches(p) || !e.policy.applicableTo(p)) continue;
+                    double price = e.policy.apply(p, qty);
+                    if (price < bestPrice) {
+                        bestPrice = price;
+                        best = e.policy;
+                    }
+                }
+            }
+            if (type != null && type != Object.class) {
+                bucket = s.byType.get(type);
+                type = type.getSuperclass();
+            } else if (categoryId != null) {
+                bucket = s.byCategory.get(categoryId);
+                categoryId = null;
+            } else if (prefix < s.prefixLengths.length && s.prefixLengths[prefix] <= id.length()) {
+                int len = s.prefixLengths[prefix++];
+                for (; hashedTo < len; hashedTo++) hash = 31 * hash + id.charAt(hashedTo); // String.hashCode
+                bucket = s.prefixBucket(id, len, hash);
+            } else {
+                return best;
+            }
+        }
+    }
+
+    /** Total for the line under best(p, qty), or the plain price × qty when nothing applies. */
+    public double bestPrice(Product p, int qty) {
+        PricePolicy policy = best(p, qty);
+        return policy == null ? p.getPrice() * Math.max(0, qty) : policy.apply(p, qty);
+    }
+
+    private static Entry[] append(Entry[] bucket, Entry e) {
+        Entry[] next = Arrays.copyOf(bucket, bucket.length + 1);
+        next[bucket.length] = e;
+        return next;
+    }
+
+    private static <K> Map<K, Entry[]> with(Map<K, Entry[]> map, K key, Entry e) {
+        Map<K, Entry[]> next = new HashMap<>(map);
+        next.put(key, append(map.getOrDefault(key, NONE), e));
+        return next;
+    }
+
+    private static Entry[] without(Entry[] bucket, PricePolicy policy, int[] removed) {
+        int keep = 0;
+        for (Entry e : bucket) if (e.policy != policy) keep++;
+        if (keep == bucket.length) return bucket;
+        Entry[] next = new Entry[keep];
+        int i = 0;
+        for (Entry e : bucket) if (e.policy != policy) next[i++] = e;
+        removed[0] += bucket.length - keep;
+        return next;
+    }
+
+    private static <K> Map<K, Entry[]> without(Map<K, Entry[]> map, PricePolicy policy, int[] removed) {
+        Map<K, Entry[]> next = null;
+        for (Map.Entry<K, Entry[]> bucket : map.entrySet()) {
+            Entry[] kept = without(bucket.getValue(), policy, removed);
+            if (kept == bucket.getValue()) continue;
+            if (next == null) next = new HashMap<>(map);
+            if (kept.length == 0) next.remove(bucket.getKey());
+            else next.put(bucket.getKey(), kept);
+        }
+        return next == null ? map : next;
+    }
+}
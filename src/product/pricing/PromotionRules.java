@@ -0,0 +1,208 @@
+package product.pricing;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import product.DigitalProduct;
+import product.PhysicalProduct;
+import product.Product;
+
+/**
+ * Promotions written as rules instead of Promotion subclasses; each rule is parsed once and
+ * compiled into a RulePromotion (pre-resolved actions, no parsing at checkout).
+ *
+ * File format (one rule per line, '#' comments):
+ *   CODE: action [then action]... [if condition [and condition]...] [priority N]
+ * Actions (applied in order to the line total, so later ones stack on earlier ones):
+ *   percent 10             10% off
+ *   fixed 50               50 KZT off per unit
+ *   buy 2 get 1 at 100%    in every 3 units, 1 is 100% off (buy 1 get 1 at 50% = BOGO half)
+ * Conditions:
+ *   category=ELEC   type=digital|physical   id^=SKU-   price>=5000 (also > < <=)   qty>=3
+ * Example:
+ *   SPRING: percent 10 then fixed 20 if category=ELEC and price>=5000 priority 5
+ */
+public final class PromotionRules {
+    /** A compiled rule plus the scope PromotionRegistry should file it under. */
+    public static final class Rule {
+        public final RulePromotion promotion;
+        public final int priority; // higher first; file order breaks ties
+        public final String categoryId;
+        public final Class<? extends Product> type;
+        public final String idPrefix;
+
+        Rule(RulePromotion promotion, int priority, String categoryId,
+             Class<? extends Product> type, String idPrefix) {
+            this.promotion = promotion;
+            this.priority = priority;
+            this.categoryId = categoryId;
+            this.type = type;
+            this.idPrefix = idPrefix;
+        }
+
+        @Override public String toString() { return promotion + " (priority " + priority + ")"; }
+    }
+
+    private static final String NUM = "(\\d+(?:\\.\\d+)?)";
+    private static final Pattern LINE = Pattern.compile("^\\s*([\\w-]+)\\s*:\\s*(.+?)(?:\\s+priority\\s+(-?\\d+))?\\s*$");
+    private static final Pattern PERCENT = Pattern.compile("percent\\s+" + NUM + "%?");
+    private static final Pattern FIXED = Pattern.compile("fixed\\s+" + NUM);
+    private static final Pattern BUY = Pattern.compile("buy\\s+(\\d+)\\s+get\\s+(\\d+)\\s+at\\s+" + NUM + "%?");
+    private static final Pattern COND = Pattern.compile("(category|type|id|price|qty)\\s*(>=|<=|\\^=|=|>|<)\\s*(\\S+)");
+
+    private final List<Rule> rules;
+
+    private PromotionRules(List<Rule> rules) {
+        List<Rule> sorted = new ArrayList<>(rules);
+        sorted.sort(Comparator.comparingInt((Rule r) -> -r.priority)); // stable: file order within a priority
+        this.rules = Collections.unmodifiableList(sorted);
+    }
+
+    public static PromotionRules load(Path file) throws IOException {
+        List<Rule> rules = new ArrayList<>();
+        int lineNo = 0;
+        for (String raw : Files.readAllLines(file)) {
+            lineNo++;
+            int hash = raw.indexOf('#');
+            String line = (hash >= 0 ? raw.substring(0, hash) : raw).trim();
+            if (line.isEmpty()) continue;
+            try {
+                rules.add(compile(line));
+            } catch (IllegalArgumentException e) {
+                throw new IOException(file + ":" + lineNo + ": " + e.getMessage(), e);
+            }
+        }
+        return new PromotionRules(rules);
+    }
+
+    /** Rules from in-memory lines (same syntax as the file). */
+    public static PromotionRules of(String... lines) {
+        List<Rule> rules = new ArrayList<>();
+        for (String line : lines) rules.add(compile(line));
+        return new PromotionRules(rules);
+    }
+
+    /** Parse and compile one rule line; throws IllegalArgumentException on bad syntax. */
+    public static Rule compile(String line) {
+        Matcher m = LINE.matcher(line);
+        if (!m.matches()) throw new IllegalArgumentException("expected 'CODE: action ...'");
+        String code = m.group(1);
+        String body = m.group(2);
+        int priority = m.group(3) == null ? 0 : Integer.parseInt(m.group(3));
+
+        String[] parts = body.split("\\s+if\\s+", 2);
+        List<RulePromotion.Action> actions = new ArrayList<>();
+        for (String action : parts[0].trim().split("\\s+then\\s+")) {
+            Matcher a;
+            if ((a = PERCENT.matcher(action)).matches()) {
+                actions.add(RulePromotion.Action.percent(percent(a.group(1))));
+            } else if ((a = FIXED.matcher(action)).matches()) {
+                actions.add(RulePromotion.Action.fixed(Double.parseDouble(a.group(1))));
+            } else if ((a = BUY.matcher(action)).matches()) {
+                int buy = Integer.parseInt(a.group(1));
+                int get = Integer.parseInt(a.group(2));
+                double pct = percent(a.group(3));
+                if (buy < 1 || get < 1) throw new IllegalArgumentException("buy/get counts must be >= 1");
+                actions.add(RulePromotion.Action.buy(buy, get, pct));
+            } else {
+                throw new IllegalArgumentException("unknown action '" + action + "'");
+            }
+        }
+
+        RulePromotion.Condition condition = null;
+        int minQty = 0;
+        String categoryId = null;
+        Class<? extends Product> type = null;
+        String idPrefix = null;
+        if (parts.length > 1) {
+            for (String cond : parts[1].trim().split("\\s+and\\s+")) {
+                Matcher c = COND.matcher(cond.trim());
+                if (!c.matches()) throw new IllegalArgumentException("unknown condition '" + cond.trim() + "'");
+                String field = c.group(1), op = c.group(2), value = c.group(3);
+                if (field.equals("qty")) { // checked in apply, products stay applicable
+                    int n = (int) number(value);
+                    if (op.equals(">=")) minQty = Math.max(minQty, n);
+                    else if (op.equals(">")) minQty = Math.max(minQty, n + 1);
+                    else throw new IllegalArgumentException("qty needs >= or >");
+                    continue;
+                }
+                if (condition == null) condition = new RulePromotion.Condition();
+                switch (field) {
+                    case "category" -> {
+                        requireOp(field, op, "=");
+                        categoryId = value;
+                        condition.category(value);
+                    }
+                    case "type" -> {
+                        requireOp(field, op, "=");
+                        if (value.equalsIgnoreCase("digital")) type = DigitalProduct.class;
+                        else if (value.equalsIgnoreCase("physical")) type = PhysicalProduct.class;
+                        else throw new IllegalArgumentException("type must be digital or physical");
+                        condition.type(type);
+                    }
+                    case "id" -> {
+                        requireOp(field, op, "^=");
+                        idPrefix = value;
+                        condition.idPrefix(value);
+                    }
+                    default -> { // price
+                        double limit = number(value);
+                        switch (op) {
+                            case ">=" -> condition.minPrice(limit);
+                            case "<=" -> condition.maxPrice(limit);
+                            case ">" -> condition.minPrice(Math.nextUp(limit));
+                            case "<" -> condition.maxPrice(Math.nextDown(limit));
+                            default -> throw new IllegalArgumentException("price needs >=, <=, > or <");
+                        }
+                    }
+                }
+            }
+        }
+        RulePromotion promotion = new RulePromotion(code, body, condition, minQty,
+                                                    actions.toArray(new RulePromotion.Action[0]));
+        return new Rule(promotion, priority, categoryId, type, idPrefix);
+    }
+
+    /** Rules by priority (highest first). */
+    public List<Rule> rules() { return rules; }
+
+    public int size() { return rules.size(); }
+
+    /** The rule with this code, or null. */
+    public RulePromotion get(String code) {
+        for (Rule r : rules) {
+            if (r.promotion.code().equals(code)) return r.promotion;
+        }
+        return null;
+    }
+
+    /** File every rule under its most selective scope; returns how many were registered. */
+    public int registerAll(PromotionRegistry registry) {
+        for (Rule r : rules) registry.register(r.promotion, r.categoryId, r.type, r.idPrefix);
+        return rules.size();
+    }
+
+    private static void requireOp(String field, String op, String expected) {
+        if (!op.equals(expected)) throw new IllegalArgumentException(field + " needs '" + expected + "'");
+    }
+
+    private static double percent(String text) {
+        double pct = number(text);
+        if (pct > 100) throw new IllegalArgumentException("percent above 100: " + text);
+        return pct;
+    }
+
+    private static double number(String text) {
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("not a number: " + text);
+        }
+    }
+}
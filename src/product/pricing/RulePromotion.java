@@ -0,0 +1,161 @@
+package product.pricing;
+
+import category.Category;
+import product.Product;
+
+/**
+ * A promotion compiled from a PromotionRules line: a product condition, a minimum qty and
+ * a chain of actions over the line total, each action seeing the total left by the previous
+ * one (stacking order). Lines that fail the condition are charged the plain price.
+ *
+ * Actions and the condition are data (final classes, no composed lambdas), so every call
+ * from apply() stays monomorphic however many rules are loaded: actions switch on their
+ * kind with percentages resolved once at compile time, and the conjunction of conditions is
+ * folded into one Condition (price bounds, type, category, id prefix) tested in one pass.
+ */
+public final class RulePromotion extends Promotion {
+    /** One compiled action over the line total. */
+    static final class Action {
+        private static final int PERCENT = 0, FIXED = 1, BUY = 2;
+
+        private final int kind;
+        private final double off100;   // PERCENT, BUY: fraction off (pct / 100)
+        private final long bp;         // PERCENT: pct as basis points; BUY: (100 - pct) as basis points
+        private final double off;      // FIXED: KZT off per unit
+        private final long offMinor;
+        private final int group, get;  // BUY: in every group units, get are discounted
+
+        private Action(int kind, double pct, long bp, double off, int group, int get) {
+            this.kind = kind;
+            this.off100 = pct / 100.0;
+            this.bp = bp;
+            this.off = off;
+            this.offMinor = Money.ofMajor(off);
+            this.group = group;
+            this.get = get;
+        }
+
+        static Action percent(double pct) { return new Action(PERCENT, pct, Money.basisPoints(pct), 0, 0, 0); }
+        static Action fixed(double off) { return new Action(FIXED, 0, 0, off, 0, 0); }
+        static Action buy(int buy, int get, double pct) {
+            return new Action(BUY, pct, Money.basisPoints(100 - pct), 0, buy + get, get);
+        }
+
+        /** unit = total / qty, passed in so the first action need not divide. */
+        double apply(double total, double unit, int qty) {
+            switch (kind) {
+                case PERCENT: return total - total * off100;
+                case FIXED: return Math.max(0.0, total - off * qty);
+                default: return total - unit * ((qty / group) * get) * off100;
+            }
+        }
+
+        /** unit = total / qty rounded, passed in so the first action need not divide. */
+        long applyMinor(long total, long unit, int qty) {
+            switch (kind) {
+                case PERCENT: return total - Money.percentOfBasisPoints(total, bp);
+                case FIXED: return Math.max(0, total - Money.times(offMinor, qty));
+                default: { // each discounted unit rounded on its own, like BogoHalfPromotion
+                    int discounted = (qty / group) * get;
+                    return total - Money.times(unit, discounted) + Money.times(Money.percentOfBasisPoints(unit, bp), discounted);
+                }
+            }
+        }
+    }
+
+    /**
+     * The "if" part of a rule, folded at compile time: each field narrows the match, and
+     * contradictory parts (two categories, digital and physical) leave an empty price range.
+     */
+    static final class Condition {
+        private double minPrice = Double.NEGATIVE_INFINITY; // inclusive; price>x is stored as >= nextUp(x)
+        private double maxPrice = Double.POSITIVE_INFINITY; // inclusive
+        private Class<? extends Product> type;              // null = any
+        private String categoryId;                          // null = any
+        private String idPrefix;                            // null = any
+
+        void minPrice(double limit) { minPrice = Math.max(minPrice, limit); }
+        void maxPrice(double limit) { maxPrice = Math.min(maxPrice, limit); }
+
+        void type(Class<? extends Product> t) {
+            if (type == null || type.isAssignableFrom(t)) type = t;
+            else if (!t.isAssignableFrom(type)) never();
+        }
+
+        void category(String id) {
+            if (categoryId != null && !categoryId.equals(id)) never();
+            categoryId = id;
+        }
+
+        void idPrefix(String prefix) {
+            if (idPrefix == null || prefix.startsWith(idPrefix)) idPrefix = prefix;
+            else if (!idPrefix.startsWith(prefix)) never();
+        }
+
+        private void never() { minPrice = Double.POSITIVE_INFINITY; } // no price is >= +inf
+
+        boolean matches(Product p, double price) {
+            if (price < minPrice || price > maxPrice) return false;
+            if (type != null && !type.isInstance(p)) return false;
+            if (categoryId != null) {
+                Category c = p.getCategory();
+                if (c == null || !categoryId.equals(c.getCategoryId())) return false;
+            }
+            return idPrefix == null || p.getId().startsWith(idPrefix);
+        }
+    }
+
+    private final String source;
+    private final Condition condition; // null = every product
+    private final int minQty;
+    private final Action[] actions;
+    private final Action single; // actions[0] when there is exactly one (most rules): no loop
+
+    RulePromotion(String code, String source, Condition condition, int minQty, Action[] actions) {
+        super(code);
+        this.source = source;
+        this.condition = condition;
+        this.minQty = Math.max(0, minQty);
+        this.actions = actions;
+        this.single = actions.length == 1 ? actions[0] : null;
+    }
+
+    @Override protected double discountedUnitPrice(Product p, int qty) {
+        // Not used; apply(...) works on the line total so steps can stack.
+        return p.getPrice();
+    }
+
+    @Override
+    public double apply(Product p, int qty) {
+        int q = Math.max(0, qty);
+        double price = p.getPrice();
+        double total = price * q;
+        if (q == 0 || q < minQty || (condition != null && !condition.matches(p, price))) return total;
+        if (single != null) return Math.max(0.0, single.apply(total, price, q));
+        for (Action a : actions) total = a.apply(total, total / q, q);
+        return Math.max(0.0, total);
+    }
+
+    @Override
+    public long applyMinor(Product p, int qty) {
+        int q = Math.max(0, qty);
+        long price = p.getPriceMinor();
+        long total = Money.times(price, q);
+        if (q == 0 || q < minQty || (condition != null && !condition.matches(p, p.getPrice()))) return total;
+        if (single != null) return Math.max(0, single.applyMinor(total, price, q));
+        for (Action a : actions) total = a.applyMinor(total, Money.divide(total, q), q);
+        return Math.max(0, total);
+    }
+
+    @Override public boolean applicableTo(Product p) { return condition == null || condition.matches(p, p.getPrice()); }
+
+    /** Smallest qty the rule discounts (from a "qty>=" condition). */
+    public int minQty() { return minQty; }
+
+    /** The rule text this promotion was compiled from. */
+    public String source() { return source; }
+
+    @Override public String name() { return "Rule(" + code() + ")"; }
+
+    @Override public String toString() { return code() + ": " + source; }
+}
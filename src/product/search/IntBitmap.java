@@ -0,0 +1,369 @@
+package product.search;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Compressed set of non-negative ints (roaring-style): values are split by their high 16
+ * bits into chunks, and each chunk is a sorted char[] while sparse (up to 4096 values) or a
+ * 65536-bit bitmap once dense. Intersections then cost about the size of the smaller set.
+ * Not thread-safe; SearchIndex guards its bitmaps with its own lock.
+ */
+public final class IntBitmap {
+    private static final int ARRAY_MAX = 4096; // above this a chunk's bitmap (8 KB) is smaller
+    private static final int ARRAY_BACK = ARRAY_MAX / 2; // a removal turns a bitmap back into an array at or below this
+
+    /** One 65536-value chunk: exactly one of array/bits is in use. */
+    private static final class Chunk {
+        char[] array; // sorted low 16 bits, when bits == null
+        long[] bits;  // 1024 words
+        int card;
+
+        static Chunk ofArray(char[] array, int card) {
+            Chunk c = new Chunk();
+            c.array = array;
+            c.card = card;
+            return c;
+        }
+
+        static Chunk ofBits(long[] bits, int card) {
+            Chunk c = new Chunk();
+            c.bits = bits;
+            c.card = card;
+            return c;
+        }
+
+        boolean contains(char v) {
+            if (bits != null) return (bits[v >>> 6] & (1L << v)) != 0;
+            return Arrays.binarySearch(array, 0, card, v) >= 0;
+        }
+
+        boolean add(char v) {
+            if (bits != null) {
+                long before = bits[v >>> 6];
+                bits[v >>> 6] = before | (1L << v);
+                if (before == bits[v >>> 6]) return false;
+                card++;
+                return true;
+            }
+            int i = Arrays.binarySearch(array, 0, card, v);
+            if (i >= 0) return false;
+            i = -i - 1;
+            if (card == ARRAY_MAX) {
+                toBits();
+                return add(v);
+            }
+            if (card == array.length) array = Arrays.copyOf(array, Math.min(ARRAY_MAX, card * 2));
+            System.arraycopy(array, i, array, i + 1, card - i);
+            array[i] = v;
+            card++;
+            return true;
+        }
+
+        boolean remove(char v) {
+            if (bits != null) {
+                long before = bits[v >>> 6];
+                bits[v >>> 6] = before & ~(1L << v);
+                if (before == bits[v >>> 6]) return false;
+                if (--card <= ARRAY_BACK) toArray(); // hysteresis: add/remove around ARRAY_MAX does not convert each time
+                return true;
+            }
+            int i = Arrays.binarySearch(array, 0, card, v);
+            if (i < 0) return false;
+            System.arraycopy(array, i + 1, array, i, card - i - 1);
+            card--;
+            return true;
+        }
+
+        void toBits() {
+            long[] b = new long[1024];
+            for (int i = 0; i < card; i++) b[array[i] >>> 6] |= 1L << array[i];
+            bits = b;
+            array = null;
+        }
+
+        void toArray() {
+            char[] a = new char[Math.max(4, card)];
+            int k = 0;
+            for (int w = 0; w < 1024; w++) {
+                for (long word = bits[w]; word != 0; word &= word - 1) {
+                    a[k++] = (char) (w * 64 + Long.numberOfTrailingZeros(word));
+                }
+            }
+            array = a;
+            bits = null;
+        }
+
+        Chunk and(Chunk o) {
+            if (bits == null && o.bits == null) {
+                char[] out = new char[Math.min(card, o.card)];
+                int i = 0, j = 0, k = 0;
+                while (i < card && j < o.card) {
+                    char a = array[i], b = o.array[j];
+                    if (a < b) i++;
+                    else if (a > b) j++;
+                    else { out[k++] = a; i++; j++; }
+                }
+                return k == 0 ? null : ofArray(out, k);
+            }
+            if (bits == null || o.bits == null) {
+                Chunk arr = bits == null ? this : o, map = bits == null ? o : this;
+                char[] out = new char[arr.card];
+                int k = 0;
+                for (int i = 0; i < arr.card; i++) {
+                    char v = arr.array[i];
+                    if ((map.bits[v >>> 6] & (1L << v)) != 0) out[k++] = v;
+                }
+                return k == 0 ? null : ofArray(out, k);
+            }
+            long[] out = new long[1024];
+            int n = 0;
+            for (int w = 0; w < 1024; w++) n += Long.bitCount(out[w] = bits[w] & o.bits[w]);
+            if (n == 0) return null;
+            Chunk c = ofBits(out, n);
+            if (n <= ARRAY_MAX) c.toArray();
+            return c;
+        }
+
+        Chunk or(Chunk o) {
+            if (bits == null && o.bits == null && card + o.card <= ARRAY_MAX) {
+                char[] out = new char[card + o.card];
+                int i = 0, j = 0, k = 0;
+                while (i < card && j < o.card) {
+                    char a = array[i], b = o.array[j];
+                    if (a < b) { out[k++] = a; i++; }
+                    else if (a > b) { out[k++] = b; j++; }
+                    else { out[k++] = a; i++; j++; }
+                }
+                while (i < card) out[k++] = array[i++];
+                while (j < o.card) out[k++] = o.array[j++];
+                return ofArray(out, k);
+            }
+            long[] out = bits != null ? bits.clone() : new long[1024];
+            if (bits == null) for (int i = 0; i < card; i++) out[array[i] >>> 6] |= 1L << array[i];
+            if (o.bits != null) for (int w = 0; w < 1024; w++) out[w] |= o.bits[w];
+            else for (int i = 0; i < o.card; i++) out[o.array[i] >>> 6] |= 1L << o.array[i];
+            int n = 0;
+            for (long word : out) n += Long.bitCount(word);
+            Chunk c = ofBits(out, n);
+            if (n <= ARRAY_MAX) c.toArray();
+            return c;
+        }
+
+        /** Merge o into this chunk; stays a bitmap once dense, so repeated unions allocate little. */
+        void orInPlace(Chunk o) {
+            if (bits == null && card + o.card > ARRAY_MAX) toBits();
+            if (bits == null) {
+                Chunk merged = or(o);
+                array = merged.array;
+                bits = merged.bits;
+                card = merged.card;
+                return;
+            }
+            if (o.bits != null) {
+                int n = 0;
+                for (int w = 0; w < 1024; w++) n += Long.bitCount(bits[w] |= o.bits[w]);
+                card = n;
+            } else {
+                for (int i = 0; i < o.card; i++) {
+                    char v = o.array[i];
+                    long before = bits[v >>> 6];
+                    bits[v >>> 6] = before | (1L << v);
+                    if (before != bits[v >>> 6]) card++;
+                }
+            }
+        }
+
+        Chunk copy() {
+            return bits != null ? ofBits(bits.clone(), card) : ofArray(Arrays.copyOf(array, card), card);
+        }
+
+        void forEach(int high, IntConsumer action) {
+            if (bits == null) {
+                for (int i = 0; i < card; i++) action.accept(high | array[i]);
+                return;
+            }
+            for (int w = 0; w < 1024; w++) {
+                for (long word = bits[w]; word != 0; word &= word - 1) {
+                    action.accept(high | (w * 64 + Long.numberOfTrailingZeros(word)));
+                }
+            }
+        }
+
+        boolean forEachWhile(int high, IntPredicate action) {
+            if (bits == null) {
+                for (int i = 0; i < card; i++) if (!action.test(high | array[i])) return false;
+                return true;
+            }
+            for (int w = 0; w < 1024; w++) {
+                for (long word = bits[w]; word != 0; word &= word - 1) {
+                    if (!action.test(high | (w * 64 + Long.numberOfTrailingZeros(word)))) return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private char[] keys = new char[4];  // high 16 bits, ascending
+    private Chunk[] chunks = new Chunk[4];
+    private int size;                   // chunks in use
+    private int cardinality;
+
+    public static IntBitmap of(int... values) {
+        IntBitmap b = new IntBitmap();
+        for (int v : values) b.add(v);
+        return b;
+    }
+
+    public boolean add(int value) {
+        checkValue(value);
+        char key = (char) (value >>> 16);
+        int i = indexOf(key);
+        if (i < 0) {
+            i = -i - 1;
+            insertChunk(i, key, Chunk.ofArray(new char[4], 0));
+        }
+        if (!chunks[i].add((char) value)) return false;
+        cardinality++;
+        return true;
+    }
+
+    public boolean remove(int value) {
+        if (value < 0) return false;
+        int i = indexOf((char) (value >>> 16));
+        if (i < 0 || !chunks[i].remove((char) value)) return false;
+        cardinality--;
+        if (chunks[i].card == 0) removeChunk(i);
+        return true;
+    }
+
+    public boolean contains(int value) {
+        if (value < 0) return false;
+        int i = indexOf((char) (value >>> 16));
+        return i >= 0 && chunks[i].contains((char) value);
+    }
+
+    public int cardinality() { return cardinality; }
+    public boolean isEmpty() { return cardinality == 0; }
+
+    /** New bitmap holding values in both; walks only chunk keys present in both. */
+    public static IntBitmap and(IntBitmap a, IntBitmap b) {
+        IntBitmap out = new IntBitmap();
+        int i = 0, j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) i++;
+            else if (a.keys[i] > b.keys[j]) j++;
+            else {
+                Chunk c = a.chunks[i].and(b.chunks[j]);
+                if (c != null) out.appendChunk(a.keys[i], c);
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    /** New bitmap holding values in either. */
+    public static IntBitmap or(IntBitmap a, IntBitmap b) {
+        IntBitmap out = new IntBitmap();
+        int i = 0, j = 0;
+        while (i < a.size || j < b.size) {
+            if (j >= b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                out.appendChunk(a.keys[i], a.chunks[i].copy());
+                i++;
+            } else if (i >= a.size || a.keys[i] > b.keys[j]) {
+                out.appendChunk(b.keys[j], b.chunks[j].copy());
+                j++;
+            } else {
+                out.appendChunk(a.keys[i], a.chunks[i].or(b.chunks[j]));
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    /** Add every value of other to this bitmap (for accumulating many unions). */
+    public void or(IntBitmap other) {
+        for (int j = 0; j < other.size; j++) {
+            int i = indexOf(other.keys[j]);
+            if (i < 0) {
+                insertChunk(-i - 1, other.keys[j], other.chunks[j].copy());
+                cardinality += other.chunks[j].card;
+            } else {
+                int before = chunks[i].card;
+                chunks[i].orInPlace(other.chunks[j]);
+                cardinality += chunks[i].card - before;
+            }
+        }
+    }
+
+    public IntBitmap copy() {
+        IntBitmap out = new IntBitmap();
+        for (int i = 0; i < size; i++) out.appendChunk(keys[i], chunks[i].copy());
+        return out;
+    }
+
+    /** Values in ascending order. */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) chunks[i].forEach(keys[i] << 16, action);
+    }
+
+    /** Values in ascending order until action returns false; false if it stopped early. */
+    public boolean forEachWhile(IntPredicate action) {
+        for (int i = 0; i < size; i++) {
+            if (!chunks[i].forEachWhile(keys[i] << 16, action)) return false;
+        }
+        return true;
+    }
+
+    public int[] toArray() {
+        int[] out = new int[cardinality];
+        int[] k = new int[1];
+        forEach(v -> out[k[0]++] = v);
+        return out;
+    }
+
+    /** Heap bytes held by chunk storage (for comparing against a plain int[] or BitSet). */
+    public long sizeInBytes() {
+        long bytes = keys.length * 2L + chunks.length * 8L;
+        for (int i = 0; i < size; i++) bytes += chunks[i].bits != null ? 8192 : chunks[i].array.length * 2L;
+        return bytes;
+    }
+
+    @Override public String toString() {
+        return "IntBitmap{cardinality=%d, chunks=%d, bytes=%d}".formatted(cardinality, size, sizeInBytes());
+    }
+
+    private int indexOf(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void appendChunk(char key, Chunk c) {
+        insertChunk(size, key, c);
+        cardinality += c.card;
+    }
+
+    private void insertChunk(int i, char key, Chunk c) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            chunks = Arrays.copyOf(chunks, size * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(chunks, i, chunks, i + 1, size - i);
+        keys[i] = key;
+        chunks[i] = c;
+        size++;
+    }
+
+    private void removeChunk(int i) {
+        System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+        System.arraycopy(chunks, i + 1, chunks, i, size - i - 1);
+        chunks[--size] = null;
+    }
+
+    private static void checkValue(int value) {
+        if (value < 0) throw new IllegalArgumentException("negative value " + value);
+    }
+}
@@ -0,0 +1,362 @@
+package product.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import product.Product;
+import product.ProductListener;
+
+/**
+ * In-memory search over products: name/description tokens (inverted index with IntBitmap
+ * postings), a sorted price index and stock-status bitmaps, all keyed by dense doc ids.
+ * Stays current by listening to the products it holds: trySetName/trySetDescription
+ * re-tokenize, price changes move the product in the price index and quantity changes
+ * that cross a stock-status boundary move it between status bitmaps.
+ *
+ * Query text is split like product text (letters/digits, case-insensitive); every token
+ * must match, and a trailing '*' makes a token a prefix ("tele*"). Results come cheapest
+ * first. Queries share a read lock; index updates take the write lock.
+ */
+public class SearchIndex implements ProductListener {
+    private static final String[] STATUSES = {"OUT_OF_STOCK", "LOW", "IN_STOCK"};
+    private static final String[] NO_TOKENS = new String[0];
+    private static final int WIDE_PREFIX = 16; // prefixes matching more tokens are not unioned
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Product, Integer> docIds = new IdentityHashMap<>();
+    private Product[] docs = new Product[64];
+    private double[] prices = new double[64];     // price each doc is indexed under
+    private byte[] statuses = new byte[64];       // index into STATUSES
+    private String[][] tokens = new String[64][]; // tokens each doc is indexed under
+    private int[] freeDocs = new int[16];
+    private int freeCount;
+    private int nextDoc;
+
+    private final TreeMap<String, IntBitmap> postings = new TreeMap<>();
+    private final TreeMap<Double, IntBitmap> byPrice = new TreeMap<>();
+    private final IntBitmap[] byStatus = {new IntBitmap(), new IntBitmap(), new IntBitmap()};
+
+    /** Index a product and start following its changes; false if null or already indexed. */
+    public boolean add(Product p) {
+        if (p == null) return false;
+        lock.writeLock().lock();
+        try {
+            if (docIds.containsKey(p)) return false;
+            int doc = freeCount > 0 ? freeDocs[--freeCount] : nextDoc++;
+            ensureCapacity(doc + 1);
+            docIds.put(p, doc);
+            docs[doc] = p;
+            p.addListener(this);
+            // Read fields after subscribing so a change racing with add is not lost.
+            indexText(doc, p);
+            indexPrice(doc, p.getPrice());
+            indexStatus(doc, p.getQuantity());
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Returns how many were added. */
+    public int addAll(Collection<? extends Product> products) {
+        int added = 0;
+        for (Product p : products) {
+            if (add(p)) added++;
+        }
+        return added;
+    }
+
+    /** Drop a product and stop following it; false if it was not indexed. */
+    public boolean remove(Product p) {
+        if (p == null) return false;
+        lock.writeLock().lock();
+        try {
+            Integer doc = docIds.remove(p);
+            if (doc == null) return false;
+            p.removeListener(this);
+            unindexText(doc);
+            unindexPrice(doc);
+            byStatus[statuses[doc]].remove(doc);
+            docs[doc] = null;
+            if (freeCount == freeDocs.length) freeDocs = Arrays.copyOf(freeDocs, freeCount * 2);
+            freeDocs[freeCount++] = doc;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Products whose text matches every token, cheapest first. */
+    public List<Product> search(String text) {
+        return search(text, 0.0, Double.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Products matching the text (null/blank = any) with minPrice <= price <= maxPrice and,
+     * if any stock statuses are given, one of them; cheapest first, at most limit results.
+     */
+    public List<Product> search(String text, double minPrice, double maxPrice, int limit,
+                                String... stockStatuses) {
+        List<Product> out = new ArrayList<>();
+        if (limit <= 0 || minPrice > maxPrice) return out;
+        String[] terms = tokenize(text, true);
+        lock.readLock().lock();
+        try {
+            // Exact tokens and narrow prefixes become bitmaps to intersect; wide prefixes would
+            // union much of the index, so they are checked per candidate against its tokens.
+            IntBitmap[] lists = new IntBitmap[terms.length];
+            List<String> wide = new ArrayList<>();
+            int k = 0;
+            for (String term : terms) {
+                if (!term.endsWith("*")) {
+                    if ((lists[k++] = postings.get(term)) == null) return out;
+                    continue;
+                }
+                String prefix = term.substring(0, term.length() - 1);
+                NavigableMap<String, IntBitmap> range = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+                if (range.isEmpty()) return out;
+                if (range.size() > WIDE_PREFIX) wide.add(prefix);
+                else lists[k++] = union(range.values());
+            }
+            Arrays.sort(lists, 0, k, (x, y) -> Integer.compare(x.cardinality(), y.cardinality()));
+            IntBitmap hits = k == 0 ? null : lists[0]; // null = every doc
+            for (int i = 1; i < k && !hits.isEmpty(); i++) hits = IntBitmap.and(hits, lists[i]);
+            IntBitmap stock = stockFilter(stockStatuses);
+            if (stock != null) hits = hits == null ? stock : IntBitmap.and(hits, stock);
+            String[] prefixes = wide.toArray(NO_TOKENS);
+
+            long n = hits == null ? docIds.size() : hits.cardinality();
+            if (hits == null || (long) limit * docIds.size() * 4 < n * n) {
+                // Price index drives: already cheapest first and stops at the limit, after about
+                // limit * size / n docs, fewer than the n it takes to collect and sort the hits.
+                for (IntBitmap docsAtPrice : byPrice.subMap(minPrice, true, maxPrice, true).values()) {
+                    if (addMatching(docsAtPrice, hits, prefixes, out, limit)) break;
+                }
+                return out;
+            }
+            long[] keys = new long[(int) n];
+            int[] kept = new int[1];
+            boolean[] packed = {true};
+            hits.forEach(doc -> {
+                double price = prices[doc];
+                if (price < minPrice || price > maxPrice || !hasPrefixes(doc, prefixes)) return;
+                // price in cents above, doc id below: one primitive sort gives cheapest-first order
+                long cents = Math.round(price * 100);
+                if (cents > Integer.MAX_VALUE) packed[0] = false; // would reach the sign bit
+                keys[kept[0]++] = cents << 32 | doc;
+            });
+            if (packed[0]) {
+                Arrays.sort(keys, 0, kept[0]);
+            } else { // a price >= 21,474,836.48 does not pack: sort doc ids on (price, doc) instead
+                Integer[] byPrice = new Integer[kept[0]];
+                for (int i = 0; i < byPrice.length; i++) byPrice[i] = (int) keys[i];
+                Arrays.sort(byPrice, (x, y) -> prices[x] != prices[y] ? Double.compare(prices[x], prices[y]) : Integer.compare(x, y));
+                for (int i = 0; i < byPrice.length; i++) keys[i] = byPrice[i];
+            }
+            for (int i = 0; i < kept[0] && out.size() < limit; i++) out.add(docs[(int) keys[i]]);
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Split text into lowercase letter/digit runs, without duplicates. */
+    public static String[] tokenize(String text) {
+        return tokenize(text, false);
+    }
+
+    /** As tokenize(text), but a query keeps a '*' right after a token to mark it as a prefix. */
+    private static String[] tokenize(String text, boolean query) {
+        if (text == null || text.isBlank()) return NO_TOKENS;
+        Set<String> out = new LinkedHashSet<>();
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean word = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (word && start < 0) start = i;
+            if (!word && start >= 0) {
+                boolean prefix = query && i < lower.length() && lower.charAt(i) == '*';
+                out.add(prefix ? lower.substring(start, i + 1) : lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return out.toArray(NO_TOKENS);
+    }
+
+    @Override
+    public void onValueChanged(Product p, double oldPrice, int oldQuantity, double newPrice, int newQuantity) {
+        boolean priceMoved = oldPrice != newPrice;
+        boolean statusMoved = statusOf(oldQuantity) != statusOf(newQuantity);
+        if (!priceMoved && !statusMoved) return; // most stock moves: nothing indexed changed
+        lock.writeLock().lock();
+        try {
+            Integer doc = docIds.get(p);
+            if (doc == null) return;
+            // Re-read current values: events from concurrent mutators can arrive out of order.
+            if (priceMoved) {
+                unindexPrice(doc);
+                indexPrice(doc, p.getPrice());
+            }
+            if (statusMoved) {
+                byStatus[statuses[doc]].remove(doc);
+                indexStatus(doc, p.getQuantity());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onTextChanged(Product p, String oldName, String oldDescription) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docIds.get(p);
+            if (doc == null) return;
+            unindexText(doc);
+            indexText(doc, p);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Distinct tokens in the inverted index. */
+    public int tokenCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Approximate heap bytes held by posting lists. */
+    public long postingBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (IntBitmap b : postings.values()) bytes += b.sizeInBytes();
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override public String toString() {
+        return "SearchIndex{products=%d, tokens=%d, prices=%d, postingBytes=%d}"
+            .formatted(size(), tokenCount(), byPrice.size(), postingBytes());
+    }
+
+    // ---- index maintenance (write lock held) ----
+
+    private void indexText(int doc, Product p) {
+        String desc = p.getDescription();
+        String[] ts = tokenize(desc == null ? p.getName() : p.getName() + " " + desc);
+        for (String t : ts) postings.computeIfAbsent(t, k -> new IntBitmap()).add(doc);
+        tokens[doc] = ts;
+    }
+
+    private void unindexText(int doc) {
+        for (String t : tokens[doc]) {
+            IntBitmap b = postings.get(t);
+            if (b != null && b.remove(doc) && b.isEmpty()) postings.remove(t);
+        }
+        tokens[doc] = NO_TOKENS;
+    }
+
+    private void indexPrice(int doc, double price) {
+        byPrice.computeIfAbsent(price, k -> new IntBitmap()).add(doc);
+        prices[doc] = price;
+    }
+
+    private void unindexPrice(int doc) {
+        IntBitmap b = byPrice.get(prices[doc]);
+        if (b != null && b.remove(doc) && b.isEmpty()) byPrice.remove(prices[doc]);
+    }
+
+    private void indexStatus(int doc, int quantity) {
+        byte s = statusOf(quantity);
+        byStatus[s].add(doc);
+        statuses[doc] = s;
+    }
+
+    private void ensureCapacity(int n) {
+        if (n <= docs.length) return;
+        int cap = Math.max(n, docs.length * 2);
+        docs = Arrays.copyOf(docs, cap);
+        prices = Arrays.copyOf(prices, cap);
+        statuses = Arrays.copyOf(statuses, cap);
+        tokens = Arrays.copyOf(tokens, cap);
+    }
+
+    // ---- query helpers (read lock held) ----
+
+    private static IntBitmap union(Collection<IntBitmap> lists) {
+        if (lists.size() == 1) return lists.iterator().next();
+        IntBitmap union = new IntBitmap();
+        for (IntBitmap b : lists) union.or(b);
+        return union;
+    }
+
+    /** True if, for every prefix, one of the doc's tokens starts with it. */
+    private boolean hasPrefixes(int doc, String[] prefixes) {
+        outer:
+        for (String prefix : prefixes) {
+            for (String t : tokens[doc]) {
+                if (t.startsWith(prefix)) continue outer;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /** Union of the requested status bitmaps, or null for no filter. */
+    private IntBitmap stockFilter(String[] stockStatuses) {
+        if (stockStatuses == null || stockStatuses.length == 0) return null;
+        if (stockStatuses.length == 1) return byStatus[statusIndex(stockStatuses[0])];
+        IntBitmap union = new IntBitmap();
+        for (String s : stockStatuses) union.or(byStatus[statusIndex(s)]);
+        return union;
+    }
+
+    private static int statusIndex(String status) {
+        int i = Arrays.asList(STATUSES).indexOf(status);
+        if (i < 0) throw new IllegalArgumentException("unknown stock status " + status);
+        return i;
+    }
+
+    /** Append candidates in filter (null = all) that have the prefixes; true once the limit is reached. */
+    private boolean addMatching(IntBitmap candidates, IntBitmap filter, String[] prefixes,
+                                List<Product> out, int limit) {
+        return !candidates.forEachWhile(doc -> {
+            if ((filter != null && !filter.contains(doc)) || !hasPrefixes(doc, prefixes)) return true;
+            out.add(docs[doc]);
+            return out.size() < limit;
+        });
+    }
+
+    private static byte statusOf(int quantity) {
+        return switch (Product.stockStatusOf(quantity)) { // same thresholds as Product
+            case "OUT_OF_STOCK" -> 0;
+            case "LOW" -> 1;
+            default -> 2;
+        };
+    }
+}
@@ -0,0 +1,47 @@
+package product.shipping;
+
+/**
+ * One box in a shipment: running weight/volume against the carrier's limits. count() > 1
+ * stands for that many identical boxes (oversize units, which each ship alone); weight,
+ * volume, units and price are per box.
+ */
+public final class Parcel {
+    public static final double VOLUMETRIC_DIVISOR = 5000.0; // cm³ per billable kg, as PhysicalProduct
+
+    private double weightKg;
+    private double volumeCm3;
+    private int units;
+    private int count = 1;
+    private double price;
+
+    /** How many units of (weight, volume) still fit under the limits. */
+    int room(double unitKg, double unitCm3, double maxKg, double maxCm3) {
+        long byWeight = unitKg <= 0 ? Integer.MAX_VALUE : (long) Math.floor((maxKg - weightKg) / unitKg + 1e-9);
+        long byVolume = unitCm3 <= 0 ? Integer.MAX_VALUE : (long) Math.floor((maxCm3 - volumeCm3) / unitCm3 + 1e-9);
+        return (int) Math.max(0, Math.min(byWeight, byVolume));
+    }
+
+    void put(double unitKg, double unitCm3, int count) {
+        weightKg += unitKg * count;
+        volumeCm3 += unitCm3 * count;
+        units += count;
+    }
+
+    void setCount(int count) { this.count = count; }
+    void setPrice(double price) { this.price = price; }
+
+    public double weightKg() { return weightKg; }
+    public double volumeCm3() { return volumeCm3; }
+    public int units() { return units; }
+    public int count() { return count; }
+    public double price() { return price; }
+
+    public double billableKg() {
+        return Math.max(weightKg, volumeCm3 / VOLUMETRIC_DIVISOR);
+    }
+
+    @Override public String toString() {
+        return "Parcel{%sunits=%d, weight=%.2fkg, volume=%.0fcm³, billable=%.2fkg, price=%.2f}"
+            .formatted(count > 1 ? count + "x, " : "", units, weightKg, volumeCm3, billableKg(), price);
+    }
+}
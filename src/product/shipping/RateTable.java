@@ -0,0 +1,78 @@
+package product.shipping;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Carrier price per parcel by billable weight: ascending weight breaks, plus a per-kg
+ * surcharge above the last break. Immutable.
+ *
+ * File format (one entry per line, '#' comments):
+ *   1.0,900        # up to 1 kg costs 900 KZT
+ *   5.0,1500
+ *   over,250       # each kg above the last break adds 250 KZT
+ */
+public final class RateTable {
+    private final double[] maxKg;
+    private final double[] price;
+    private final double perKgOver;
+    private final String name;
+
+    public RateTable(String name, double[] maxKg, double[] price, double perKgOver) {
+        if (maxKg.length == 0 || maxKg.length != price.length) {
+            throw new IllegalArgumentException("need matching, non-empty weight/price breaks");
+        }
+        for (int i = 1; i < maxKg.length; i++) {
+            if (maxKg[i] <= maxKg[i - 1]) throw new IllegalArgumentException("weight breaks must ascend");
+        }
+        this.name = name;
+        this.maxKg = maxKg.clone();
+        this.price = price.clone();
+        this.perKgOver = Math.max(0, perKgOver);
+    }
+
+    public static RateTable load(Path file) throws IOException {
+        List<double[]> breaks = new ArrayList<>();
+        double over = 0;
+        int lineNo = 0;
+        for (String raw : Files.readAllLines(file)) {
+            lineNo++;
+            int hash = raw.indexOf('#');
+            String line = (hash >= 0 ? raw.substring(0, hash) : raw).trim();
+            if (line.isEmpty()) continue;
+            String[] parts = line.split(",");
+            if (parts.length != 2) throw new IOException(file + ":" + lineNo + ": expected 'maxKg,price'");
+            try {
+                double value = Double.parseDouble(parts[1].trim());
+                if (parts[0].trim().equalsIgnoreCase("over")) over = value;
+                else breaks.add(new double[]{Double.parseDouble(parts[0].trim()), value});
+            } catch (NumberFormatException e) {
+                throw new IOException(file + ":" + lineNo + ": " + e.getMessage(), e);
+            }
+        }
+        breaks.sort((a, b) -> Double.compare(a[0], b[0]));
+        double[] kg = new double[breaks.size()];
+        double[] pr = new double[breaks.size()];
+        for (int i = 0; i < kg.length; i++) { kg[i] = breaks.get(i)[0]; pr[i] = breaks.get(i)[1]; }
+        try {
+            return new RateTable(file.getFileName().toString(), kg, pr, over);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /** Price for one parcel of the given billable weight. */
+    public double price(double billableKg) {
+        int i = Arrays.binarySearch(maxKg, billableKg);
+        if (i < 0) i = -i - 1; // first break >= weight
+        if (i < maxKg.length) return price[i];
+        int last = maxKg.length - 1;
+        return price[last] + Math.ceil(billableKg - maxKg[last]) * perKgOver;
+    }
+
+    public String name() { return name; }
+}
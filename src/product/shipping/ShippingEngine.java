@@ -0,0 +1,186 @@
+package product.shipping;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import product.PhysicalProduct;
+import product.Product;
+
+/**
+ * Prices a whole order's physical items as parcels instead of one quote per product.
+ * Units are packed first-fit-decreasing by unit weight under the parcel weight/volume
+ * limits (whole runs of identical units at a time, so qty=1000 is not 1000 steps);
+ * each parcel is priced on the rate table by billable weight. Units larger than a
+ * parcel ship alone, as one Parcel entry with count() = qty. Results for repeat carts
+ * come from a small LRU cache keyed by (product identity, shipping version, qty) of every line;
+ * a quote priced on a rate table that has since been replaced is never cached.
+ */
+public class ShippingEngine {
+    /** Packed parcels and their total price. */
+    public static final class Quote {
+        private final List<Parcel> parcels;
+        private final double total;
+        Quote(List<Parcel> parcels, double total) { this.parcels = List.copyOf(parcels); this.total = total; }
+        /** Distinct parcels; see Parcel.count() for identical boxes folded into one entry. */
+        public List<Parcel> parcels() { return parcels; }
+        /** Boxes shipped, counting each Parcel count() times. */
+        public int parcelCount() {
+            int n = 0;
+            for (Parcel p : parcels) n += p.count();
+            return n;
+        }
+        public double total() { return total; }
+    }
+
+    /** Physical lines of a cart: products by identity, with their shipping version and qty. */
+    private static final class Key {
+        final Product[] products;
+        final int[] versions;
+        final int[] qtys;
+        final int hash;
+
+        Key(Product[] products, int[] versions, int[] qtys) {
+            this.products = products;
+            this.versions = versions;
+            this.qtys = qtys;
+            int h = 1;
+            for (int i = 0; i < products.length; i++) {
+                h = ((h * 31 + System.identityHashCode(products[i])) * 31 + versions[i]) * 31 + qtys[i];
+            }
+            this.hash = h;
+        }
+
+        @Override public boolean equals(Object o) {
+            if (!(o instanceof Key k) || k.hash != hash || k.products.length != products.length) return false;
+            for (int i = 0; i < products.length; i++) {
+                if (k.products[i] != products[i]) return false;
+            }
+            return Arrays.equals(k.versions, versions) && Arrays.equals(k.qtys, qtys);
+        }
+
+        @Override public int hashCode() { return hash; }
+    }
+
+    private static final Quote EMPTY = new Quote(List.of(), 0.0);
+
+    private volatile RateTable rates;
+    private final double maxParcelKg;
+    private final double maxParcelCm3;
+    private final Map<Key, Quote> cache;
+
+    public ShippingEngine(RateTable rates, double maxParcelKg, double maxParcelCm3, int cacheSize) {
+        this.rates = rates;
+        this.maxParcelKg = maxParcelKg;
+        this.maxParcelCm3 = maxParcelCm3;
+        int bound = Math.max(0, cacheSize);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<Key, Quote> eldest) { return size() > bound; }
+        };
+    }
+
+    /** Swap in a new rate table (e.g. reloaded from file); cached quotes are dropped. */
+    public void setRates(RateTable rates) {
+        this.rates = rates;
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /** Quote parallel arrays of products and quantities (non-physical lines are ignored). */
+    public Quote quote(Product[] products, int[] quantities, int lines) {
+        return quote(lines, i -> products[i], i -> quantities[i]);
+    }
+
+    /** Quote any line source, e.g. quote(cart.size(), cart::product, cart::quantity). */
+    public Quote quote(int lines, IntFunction<Product> products, IntUnaryOperator quantities) {
+        Key key = cacheKey(lines, products, quantities);
+        if (key == null) return EMPTY;
+        synchronized (cache) {
+            Quote hit = cache.get(key);
+            if (hit != null) return hit;
+        }
+        RateTable table = rates;
+        Quote quote = pack(lines, products, quantities, table);
+        synchronized (cache) {
+            // setRates swaps the table before clearing under this lock: if it has run since
+            // we read it, this quote is priced on old rates and must not outlive the clear.
+            if (rates == table) cache.put(key, quote);
+        }
+        return quote;
+    }
+
+    private Quote pack(int lines, IntFunction<Product> products, IntUnaryOperator quantities, RateTable table) {
+        List<PhysicalProduct> items = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            int qty = quantities.applyAsInt(i);
+            if (products.apply(i) instanceof PhysicalProduct pp && qty > 0) {
+                items.add(pp);
+                counts.add(qty);
+            }
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) order.add(i);
+        order.sort((a, b) -> Double.compare(items.get(b).getWeightKg(), items.get(a).getWeightKg()));
+        List<Parcel> parcels = new ArrayList<>();
+        for (int i : order) {
+            PhysicalProduct pp = items.get(i);
+            double kg = pp.getWeightKg();
+            double cm3 = pp.getLengthCm() * pp.getWidthCm() * pp.getHeightCm();
+            int remaining = counts.get(i);
+            if (kg > maxParcelKg || cm3 > maxParcelCm3) { // oversize: one unit per box, boxes identical
+                Parcel own = new Parcel();
+                own.put(kg, cm3, 1);
+                own.setCount(remaining);
+                parcels.add(own);
+                continue;
+            }
+            for (int k = 0; k < parcels.size() && remaining > 0; k++) {
+                int fit = Math.min(remaining, parcels.get(k).room(kg, cm3, maxParcelKg, maxParcelCm3));
+                if (fit > 0) {
+                    parcels.get(k).put(kg, cm3, fit);
+                    remaining -= fit;
+                }
+            }
+            while (remaining > 0) {
+                Parcel fresh = new Parcel();
+                int fit = Math.max(1, Math.min(remaining, fresh.room(kg, cm3, maxParcelKg, maxParcelCm3)));
+                fresh.put(kg, cm3, fit);
+                parcels.add(fresh);
+                remaining -= fit;
+            }
+        }
+        double total = 0;
+        for (Parcel parcel : parcels) {
+            parcel.setPrice(table.price(parcel.billableKg()));
+            total += parcel.price() * parcel.count();
+        }
+        return new Quote(parcels, total);
+    }
+
+    /** Key over the physical lines, or null if there are none. */
+    private static Key cacheKey(int lines, IntFunction<Product> products, IntUnaryOperator quantities) {
+        int n = 0;
+        for (int i = 0; i < lines; i++) {
+            if (products.apply(i) instanceof PhysicalProduct && quantities.applyAsInt(i) > 0) n++;
+        }
+        if (n == 0) return null;
+        Product[] keyed = new Product[n];
+        int[] versions = new int[n];
+        int[] qtys = new int[n];
+        for (int i = 0, k = 0; i < lines && k < n; i++) {
+            Product p = products.apply(i);
+            int qty = quantities.applyAsInt(i);
+            if (p instanceof PhysicalProduct pp && qty > 0) {
+                keyed[k] = p;
+                versions[k] = pp.getShippingVersion();
+                qtys[k++] = qty;
+            }
+        }
+        return new Key(keyed, versions, qtys);
+    }
+}
@@ -0,0 +1,302 @@
+package product.store;
+
+import category.Category;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import product.PriceBatch;
+import product.Product;
+import product.ProductListener;
+import product.pricing.Money;
+import product.tax.TaxClass;
+
+/**
+ * Struct-of-arrays product store for analytics scans: one row per SKU, columns as primitive arrays.
+ * Bulk ops are plain indexed loops over double[]/int[] that the JIT can unroll and vectorize.
+ * Not thread-safe; load once, then scan (or guard externally).
+ */
+public class ColumnarProductStore {
+    private String[] ids = new String[16];
+    private String[] names = new String[16];
+    private double[] price = new double[16];
+    private int[] quantity = new int[16];
+    private int[] categoryOrdinal = new int[16]; // -1 = no category
+    private int[] version = new int[16];        // per row: bumped by every write to that row
+    private RowView[] views = new RowView[16];  // created on first toProduct(row)
+    private ProductListener[][] listeners = new ProductListener[16][]; // per row, copy-on-write; null = none
+    private int listenedRows;                   // rows with listeners; 0 keeps bulk ops on plain loops
+    private int size;
+
+    private final Map<String, Integer> rowById = new HashMap<>();     // interned id dictionary
+    private final Map<Category, Integer> ordinalByCategory = new HashMap<>();
+    private final List<Category> categories = new ArrayList<>();
+
+    /** Copy a product into a new row; false if null or its id is already stored. */
+    public boolean add(Product p) {
+        if (p == null || rowById.containsKey(p.getId())) return false;
+        ensureCapacity(size + 1);
+        int row = size++;
+        ids[row] = p.getId().intern();
+        names[row] = p.getName();
+        price[row] = p.getPrice();
+        quantity[row] = p.getQuantity();
+        categoryOrdinal[row] = ordinalOf(p.getCategory());
+        rowById.put(ids[row], row);
+        return true;
+    }
+
+    public int addAll(List<? extends Product> products) {
+        ensureCapacity(size + products.size());
+        int added = 0;
+        for (Product p : products) {
+            if (add(p)) added++;
+        }
+        return added;
+    }
+
+    public int size() { return size; }
+
+    /** Row index for an id, or -1. */
+    public int rowOf(String id) {
+        Integer row = id == null ? null : rowById.get(id);
+        return row == null ? -1 : row;
+    }
+
+    public String idAt(int row) { return ids[check(row)]; }
+    public double priceAt(int row) { return price[check(row)]; }
+    public int quantityAt(int row) { return quantity[check(row)]; }
+    public Category categoryAt(int row) {
+        int ord = categoryOrdinal[check(row)];
+        return ord < 0 ? null : categories.get(ord);
+    }
+
+    // Guarded column writes (same bounds as Product)
+    public boolean trySetPrice(int row, double p) {
+        if (p < 0.0 || p > 1_000_000.0) return false;
+        double old = price[check(row)];
+        price[row] = p;
+        version[row]++;
+        valueChanged(row, old, quantity[row]);
+        return true;
+    }
+
+    public boolean trySetQuantity(int row, int q) {
+        if (q < 0 || q > 1_000_000) return false;
+        int old = quantity[check(row)];
+        quantity[row] = q;
+        version[row]++;
+        valueChanged(row, price[row], old);
+        return true;
+    }
+
+    /** Change stamp of one row, as Product.getVersion() for its view. */
+    public int versionAt(int row) { return version[check(row)]; }
+
+    /**
+     * The row as a Product for existing code: a view that reads and writes the columns (one
+     * cached instance per row, no copy, no auto id). Listeners registered on a view (Catalog,
+     * Category, SearchIndex, ChangeEventBus) hear every write to its row, through the view or
+     * the store.
+     */
+    public Product toProduct(int row) {
+        RowView v = views[check(row)];
+        if (v == null) views[row] = v = new RowView(this, row);
+        return v;
+    }
+
+    /** Flyweight Product over one row; only the row index is stored. */
+    private static final class RowView extends Product {
+        private final ColumnarProductStore store;
+        private final int row;
+
+        RowView(ColumnarProductStore store, int row) {
+            super(store.ids[row]);
+            this.store = store;
+            this.row = row;
+        }
+
+        @Override public String getId() { return store.ids[row]; }
+        @Override public String getName() { return store.names[row]; }
+        @Override public String getDescription() { return null; }
+        @Override public double getPrice() { return store.price[row]; }
+        @Override public long getPriceMinor() { return Money.ofMajor(store.price[row]); }
+        @Override public int getQuantity() { return store.quantity[row]; }
+        @Override public Category getCategory() { return store.categoryAt(row); }
+        @Override public int getVersion() { return store.version[row]; }
+        @Override public Values values() { return valuesOf(getPrice(), getQuantity(), getVersion()); }
+
+        @Override public boolean trySetName(String name) {
+            if (name == null || name.trim().length() < 2) return false;
+            String old = store.names[row];
+            store.names[row] = name.trim();
+            ProductListener[] ls = store.listeners[row];
+            if (ls != null) for (ProductListener l : ls) l.onTextChanged(this, old, null);
+            return true;
+        }
+        @Override public boolean trySetPrice(double p) { return store.trySetPrice(row, p); }
+        @Override public boolean trySetQuantity(int q) { return store.trySetQuantity(row, q); }
+        @Override public boolean compareAndSetPrice(double expected, double p) {
+            return getPrice() == expected && store.trySetPrice(row, p);
+        }
+        /** A row's price lives in the store, with no Values to stage it in: never joins a batch. */
+        @Override public boolean stagePrice(double expected, double p, PriceBatch batch) { return false; }
+        @Override public boolean compareAndSetQuantity(int expected, int q) {
+            return getQuantity() == expected && store.trySetQuantity(row, q);
+        }
+        @Override public boolean addStock(int amount) {
+            return amount > 0 && store.trySetQuantity(row, (int) Math.min(Integer.MAX_VALUE, (long) getQuantity() + amount));
+        }
+        @Override public boolean sellProduct(int amount) {
+            return amount > 0 && amount <= getQuantity() && store.trySetQuantity(row, getQuantity() - amount);
+        }
+        @Override public boolean applyDiscount(double percent) {
+            return percent >= 0 && percent <= 90 && store.trySetPrice(row, getPrice() * (1 - percent / 100.0));
+        }
+        @Override public boolean trySetCategory(Category category) {
+            if (category == null) return false;
+            Category old = getCategory();
+            store.categoryOrdinal[row] = store.ordinalOf(category);
+            store.version[row]++;
+            ProductListener[] ls = store.listeners[row];
+            if (ls != null) for (ProductListener l : ls) l.onCategoryChanged(this, old);
+            return true;
+        }
+
+        // No column for these: refuse rather than keep a value the store never sees.
+        @Override public boolean trySetId(String id) { return false; }
+        @Override public boolean trySetDescription(String description) { return false; }
+        @Override public boolean trySetTaxClass(TaxClass taxClass) { return false; }
+
+        @Override public Values addListener(ProductListener listener) {
+            if (listener == null) return null;
+            store.addListener(row, listener);
+            return values();
+        }
+        @Override public Values removeListenerValues(ProductListener listener) {
+            return store.removeListener(row, listener) ? values() : null;
+        }
+    }
+
+    private void addListener(int row, ProductListener listener) {
+        ProductListener[] ls = listeners[row];
+        if (ls == null) {
+            listeners[row] = new ProductListener[] {listener};
+            listenedRows++;
+            return;
+        }
+        ls = Arrays.copyOf(ls, ls.length + 1);
+        ls[ls.length - 1] = listener;
+        listeners[row] = ls;
+    }
+
+    private boolean removeListener(int row, ProductListener listener) {
+        ProductListener[] ls = listeners[row];
+        if (ls == null) return false;
+        int i = 0;
+        while (i < ls.length && ls[i] != listener) i++;
+        if (i == ls.length) return false;
+        if (ls.length == 1) {
+            listeners[row] = null;
+            listenedRows--;
+            return true;
+        }
+        ProductListener[] next = new ProductListener[ls.length - 1];
+        System.arraycopy(ls, 0, next, 0, i);
+        System.arraycopy(ls, i + 1, next, i, ls.length - i - 1);
+        listeners[row] = next;
+        return true;
+    }
+
+    private void valueChanged(int row, double oldPrice, int oldQuantity) {
+        ProductListener[] ls = listeners[row];
+        if (ls == null) return;
+        Product view = toProduct(row);
+        for (ProductListener l : ls) l.onValueChanged(view, oldPrice, oldQuantity, price[row], quantity[row]);
+    }
+
+    // Bulk ops
+
+    /** Sum of price × quantity over all rows. */
+    public double totalValue() {
+        double total = 0;
+        double[] pr = price;
+        int[] q = quantity;
+        for (int i = 0; i < size; i++) total += pr[i] * q[i];
+        return total;
+    }
+
+    /** Same as totalValue() but restricted to one category. */
+    public double totalValue(Category category) {
+        Integer ord = ordinalByCategory.get(category);
+        if (ord == null) return 0;
+        double total = 0;
+        int target = ord;
+        for (int i = 0; i < size; i++) {
+            if (categoryOrdinal[i] == target) total += price[i] * quantity[i];
+        }
+        return total;
+    }
+
+    /** Discount every row by percent (0..90, like Product.applyDiscount). */
+    public boolean discountAll(double percent) {
+        if (percent < 0 || percent > 90) return false;
+        double factor = 1 - percent / 100.0;
+        double[] pr = price;
+        int[] ver = version;
+        if (listenedRows == 0) {
+            for (int i = 0; i < size; i++) pr[i] *= factor;
+            for (int i = 0; i < size; i++) ver[i]++;
+            return true;
+        }
+        for (int i = 0; i < size; i++) {
+            double old = pr[i];
+            pr[i] = old * factor;
+            ver[i]++;
+            valueChanged(i, old, quantity[i]);
+        }
+        return true;
+    }
+
+    /** Rows with quantity <= threshold (e.g. 10 for LOW/OUT_OF_STOCK). */
+    public int[] lowStockRows(int threshold) {
+        int[] out = new int[16];
+        int n = 0;
+        int[] q = quantity;
+        for (int i = 0; i < size; i++) {
+            if (q[i] <= threshold) {
+                if (n == out.length) out = Arrays.copyOf(out, n * 2);
+                out[n++] = i;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private int ordinalOf(Category c) {
+        if (c == null) return -1;
+        Integer ord = ordinalByCategory.get(c);
+        if (ord != null) return ord;
+        categories.add(c);
+        ordinalByCategory.put(c, categories.size() - 1);
+        return categories.size() - 1;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= ids.length) return;
+        int cap = Math.max(needed, ids.length * 2);
+        ids = Arrays.copyOf(ids, cap);
+        names = Arrays.copyOf(names, cap);
+        price = Arrays.copyOf(price, cap);
+        quantity = Arrays.copyOf(quantity, cap);
+        categoryOrdinal = Arrays.copyOf(categoryOrdinal, cap);
+        version = Arrays.copyOf(version, cap);
+        views = Arrays.copyOf(views, cap);
+        listeners = Arrays.copyOf(listeners, cap);
+    }
+
+    private int check(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("row " + row + ", size " + size);
+        return row;
+    }
+}
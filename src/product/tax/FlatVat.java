@@ -1,8 +1,11 @@
 package product.tax;
 import product.Product;
+import product.pricing.Money;
 
 public class FlatVat implements TaxPolicy {
     private final double percent; // e.g., 12.0
-    public FlatVat(double percent) { this.percent = Math.max(0, percent); }
+    private final long bp;
+    public FlatVat(double percent) { this.percent = Math.max(0, percent); this.bp = Money.basisPoints(this.percent); }
     @Override public double tax(Product p, int qty, double subtotal) { return subtotal * (percent / 100.0); }
+    @Override public long taxMinor(Product p, int qty, long subtotalMinor) { return Money.percentOfBasisPoints(subtotalMinor, bp); }
 }
@@ -3,4 +3,5 @@ import product.Product;
 
 public class NoTax implements TaxPolicy {
     @Override public double tax(Product p, int qty, double subtotal) { return 0.0; }
+    @Override public long taxMinor(Product p, int qty, long subtotalMinor) { return 0; }
 }
@@ -1,12 +1,18 @@
 package product.tax;
 import product.Product;
 import product.DigitalProduct;
+import product.pricing.Money;
 
 public class ReducedDigitalVat implements TaxPolicy {
     private final double percent; // e.g., 5.0
-    public ReducedDigitalVat(double percent) { this.percent = Math.max(0, percent); }
+    private final long bp;
+    public ReducedDigitalVat(double percent) { this.percent = Math.max(0, percent); this.bp = Money.basisPoints(this.percent); }
     @Override public double tax(Product p, int qty, double subtotal) {
         if (p instanceof DigitalProduct) return subtotal * (percent / 100.0);
         return 0.0;
     }
+    @Override public long taxMinor(Product p, int qty, long subtotalMinor) {
+        if (p instanceof DigitalProduct) return Money.percentOfBasisPoints(subtotalMinor, bp);
+        return 0;
+    }
 }
@@ -0,0 +1,11 @@
+package product.tax;
+
+/** Tax treatment of a product, assigned once (see TaxEngine.classify) and read at checkout. */
+public enum TaxClass {
+    STANDARD,
+    REDUCED,
+    DIGITAL,
+    EXEMPT;
+
+    static final TaxClass[] VALUES = values(); // values() clones; index by ordinal instead
+}
@@ -0,0 +1,130 @@
+package product.tax;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import product.Product;
+import product.pricing.Money;
+
+/**
+ * Order-level tax: products carry a precomputed TaxClass (see classify), and an order is
+ * taxed in one pass that sums line subtotals per class, then applies each class rate once.
+ * Rates are an immutable TaxRates read once per order, so setRates(...) swaps them at
+ * runtime without locking checkouts. Also usable per line as a plain TaxPolicy.
+ */
+public class TaxEngine implements TaxPolicy {
+    /** Per-class bases and taxes of one order, in minor units. Reusable via compute(..., into). */
+    public static final class OrderTax {
+        private final long[] baseMinor = new long[TaxClass.VALUES.length];
+        private final long[] taxMinor = new long[TaxClass.VALUES.length];
+        private long totalBaseMinor;
+        private long totalTaxMinor;
+        private TaxRates rates;
+
+        void clear() {
+            Arrays.fill(baseMinor, 0);
+            Arrays.fill(taxMinor, 0);
+            totalBaseMinor = 0;
+            totalTaxMinor = 0;
+        }
+
+        public long baseMinor(TaxClass c) { return baseMinor[c.ordinal()]; }
+        public long taxMinor(TaxClass c) { return taxMinor[c.ordinal()]; }
+        public long totalBaseMinor() { return totalBaseMinor; }
+        public long totalTaxMinor() { return totalTaxMinor; }
+        public double totalTax() { return Money.toMajor(totalTaxMinor); }
+        /** The rate table this order was taxed with. */
+        public TaxRates rates() { return rates; }
+
+        @Override public String toString() {
+            StringBuilder sb = new StringBuilder("OrderTax{");
+            for (TaxClass c : TaxClass.VALUES) {
+                if (baseMinor[c.ordinal()] == 0) continue;
+                sb.append(c).append(": ").append(Money.format(baseMinor[c.ordinal()]))
+                  .append(" -> ").append(Money.format(taxMinor[c.ordinal()])).append(", ");
+            }
+            return sb.append("total tax ").append(Money.format(totalTaxMinor)).append('}').toString();
+        }
+    }
+
+    private volatile TaxRates rates;
+
+    public TaxEngine(TaxRates rates) { setRates(rates); }
+
+    public TaxRates rates() { return rates; }
+
+    /** Takes effect for orders that start after this call; running ones finish on the old table. */
+    public void setRates(TaxRates rates) {
+        if (rates == null) throw new IllegalArgumentException("rates");
+        this.rates = rates;
+    }
+
+    /**
+     * Assign tax classes once, at catalog load, so checkout never inspects product types.
+     * Returns how many products were classified (a null class leaves the product's default).
+     */
+    public static int classify(Collection<? extends Product> products, Function<? super Product, TaxClass> rule) {
+        int n = 0;
+        for (Product p : products) {
+            if (p.trySetTaxClass(rule.apply(p))) n++;
+        }
+        return n;
+    }
+
+    /** Tax an order at list price (unit price × qty per line). */
+    public OrderTax compute(int lines, IntFunction<Product> products, IntUnaryOperator quantities) {
+        return compute(lines, products,
+            i -> Money.times(products.apply(i).getPriceMinor(), quantities.applyAsInt(i)), new OrderTax());
+    }
+
+    /** Array form of compute(...) for callers that already hold the order lines. */
+    public OrderTax compute(Product[] products, long[] lineSubtotalsMinor, int lines, OrderTax into) {
+        TaxRates r = rates;
+        into.clear();
+        into.rates = r;
+        long[] base = into.baseMinor;
+        for (int i = 0; i < lines; i++) {
+            base[products[i].getTaxClass().ordinal()] += lineSubtotalsMinor[i];
+        }
+        return finish(r, into);
+    }
+
+    /** Tax an order whose line subtotals (after promotions) are already known; fills into. */
+    public OrderTax compute(int lines, IntFunction<Product> products, IntToLongFunction lineSubtotalsMinor, OrderTax into) {
+        TaxRates r = rates; // one table for the whole order
+        into.clear();
+        into.rates = r;
+        long[] base = into.baseMinor;
+        for (int i = 0; i < lines; i++) {
+            base[products.apply(i).getTaxClass().ordinal()] += lineSubtotalsMinor.applyAsLong(i);
+        }
+        return finish(r, into);
+    }
+
+    private static OrderTax finish(TaxRates r, OrderTax into) {
+        long[] base = into.baseMinor;
+        long[] tax = into.taxMinor;
+        long totalBase = 0, totalTax = 0;
+        for (int c = 0; c < base.length; c++) {
+            tax[c] = r.taxMinor(c, base[c]); // rounded once per class, not per line
+            totalBase += base[c];
+            totalTax += tax[c];
+        }
+        into.totalBaseMinor = totalBase;
+        into.totalTaxMinor = totalTax;
+        return into;
+    }
+
+    @Override public double tax(Product p, int qty, double subtotal) {
+        return subtotal * (rates.percent(p.getTaxClass()) / 100.0);
+    }
+
+    @Override public long taxMinor(Product p, int qty, long subtotalMinor) {
+        return rates.taxMinor(p.getTaxClass().ordinal(), subtotalMinor);
+    }
+
+    @Override public String toString() { return "TaxEngine{" + rates + "}"; }
+}
@@ -1,6 +1,7 @@
 package product.tax;
 
 import product.Product;
+import product.pricing.Money;
 
 public interface TaxPolicy {
     /**
@@ -8,4 +9,12 @@ public interface TaxPolicy {
      * Must NOT mutate Product.
      */
     double tax(Product p, int qty, double subtotal);
+
+    /**
+     * Same as tax(...) with the subtotal and result in minor units (see pricing.Money).
+     * Default converts through double; policies override to compute exactly.
+     */
+    default long taxMinor(Product p, int qty, long subtotalMinor) {
+        return Money.ofMajor(tax(p, qty, Money.toMajor(subtotalMinor)));
+    }
 }
@@ -0,0 +1,83 @@
+package product.tax;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import product.pricing.Money;
+
+/**
+ * Percent rate per tax class. Immutable: with(...) returns a copy, so a TaxEngine can
+ * swap tables while checkouts keep reading the one they started with.
+ *
+ * File format (one entry per line, '#' comments; missing classes are 0%):
+ *   STANDARD,12
+ *   DIGITAL,5      # reduced VAT on downloads
+ */
+public final class TaxRates {
+    private final double[] percent;     // by TaxClass ordinal
+    private final long[] basisPoints;   // same rates, pre-resolved for exact minor-unit math
+    private final String name;
+
+    private TaxRates(String name, double[] percent) {
+        this.name = name;
+        this.percent = percent;
+        this.basisPoints = new long[percent.length];
+        for (int i = 0; i < percent.length; i++) basisPoints[i] = Math.round(percent[i] * 100);
+    }
+
+    /** All classes at 0%. */
+    public static TaxRates none() {
+        return new TaxRates("none", new double[TaxClass.VALUES.length]);
+    }
+
+    /** Every class except EXEMPT at the given rate. */
+    public static TaxRates flat(double percent) {
+        double rate = Math.max(0, percent);
+        double[] pct = new double[TaxClass.VALUES.length];
+        for (TaxClass c : TaxClass.VALUES) {
+            if (c != TaxClass.EXEMPT) pct[c.ordinal()] = rate;
+        }
+        return new TaxRates("flat " + rate + "%", pct);
+    }
+
+    public TaxRates with(TaxClass taxClass, double percent) {
+        double[] next = this.percent.clone();
+        next[taxClass.ordinal()] = Math.max(0, percent);
+        return new TaxRates(name, next);
+    }
+
+    public static TaxRates load(Path file) throws IOException {
+        double[] pct = new double[TaxClass.VALUES.length];
+        int lineNo = 0;
+        for (String raw : Files.readAllLines(file)) {
+            lineNo++;
+            int hash = raw.indexOf('#');
+            String line = (hash >= 0 ? raw.substring(0, hash) : raw).trim();
+            if (line.isEmpty()) continue;
+            String[] parts = line.split(",");
+            if (parts.length != 2) throw new IOException(file + ":" + lineNo + ": expected 'CLASS,percent'");
+            try {
+                double value = Double.parseDouble(parts[1].trim());
+                if (value < 0 || value > 100) throw new IOException(file + ":" + lineNo + ": percent out of range");
+                pct[TaxClass.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)).ordinal()] = value;
+            } catch (IllegalArgumentException e) { // also NumberFormatException
+                throw new IOException(file + ":" + lineNo + ": " + e.getMessage(), e);
+            }
+        }
+        return new TaxRates(file.getFileName().toString(), pct);
+    }
+
+    public double percent(TaxClass taxClass) { return percent[taxClass.ordinal()]; }
+    /** Tax on amountMinor at the class rate, rounded once with Money's rounding mode. */
+    long taxMinor(int ordinal, long amountMinor) {
+        return Money.divide(Math.multiplyExact(amountMinor, basisPoints[ordinal]), 10_000);
+    }
+    public String name() { return name; }
+
+    @Override public String toString() {
+        StringBuilder sb = new StringBuilder("TaxRates{").append(name);
+        for (TaxClass c : TaxClass.VALUES) sb.append(", ").append(c).append('=').append(percent[c.ordinal()]).append('%');
+        return sb.append('}').toString();
+    }
+}